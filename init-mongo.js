@@ -30,8 +30,21 @@ db.products.createIndex({ "category": 1 });
 db.products.createIndex({ "active": 1 });
 db.products.createIndex({ "category": 1, "active": 1 });
 db.products.createIndex({ "stockQuantity": 1 });
+// Keyset pagination: filter prefix, sort key, then _id as the tie-breaker
+db.products.createIndex({ "active": 1, "_id": 1 });
+db.products.createIndex({ "active": 1, "name": 1, "_id": 1 });
+db.products.createIndex({ "active": 1, "createdAt": 1, "_id": 1 });
+db.products.createIndex({ "active": 1, "updatedAt": 1, "_id": 1 });
+db.products.createIndex({ "category": 1, "active": 1, "_id": 1 });
+db.products.createIndex({ "category": 1, "active": 1, "name": 1, "_id": 1 });
+db.products.createIndex({ "category": 1, "active": 1, "createdAt": 1, "_id": 1 });
+db.products.createIndex({ "category": 1, "active": 1, "updatedAt": 1, "_id": 1 });
+// Incremental catalog export (updatedAt >= since)
+db.products.createIndex({ "updatedAt": 1, "_id": 1 });
 
 db.reviews.createIndex({ "productId": 1 });
+// Newest-first review pages per product
+db.reviews.createIndex({ "productId": 1, "createdAt": -1 });
 db.reviews.createIndex({ "userId": 1 });
 db.reviews.createIndex({ "productId": 1, "userId": 1 });
 db.reviews.createIndex({ "rating": 1 });
@@ -42,6 +55,12 @@ db.orders.createIndex({ "status": 1 });
 db.users.createIndex({ "username": 1 }, { unique: true });
 db.users.createIndex({ "email": 1 }, { unique: true });
 
+// Expired refresh tokens are removed by the TTL monitor
+db.refresh_tokens.createIndex({ "expirationDate": 1 }, { expireAfterSeconds: 0 });
+db.refresh_tokens.createIndex({ "tokenHash": 1 }, { unique: true });
+db.refresh_tokens.createIndex({ "familyId": 1 });
+db.revoked_sessions.createIndex({ "expirationDate": 1 }, { expireAfterSeconds: 0 });
+
 db.carts.createIndex({ "userId": 1 }, { unique: true });
 db.carts.createIndex({ "updatedAt": 1 });
 
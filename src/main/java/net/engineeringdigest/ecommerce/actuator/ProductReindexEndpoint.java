@@ -0,0 +1,20 @@
+package net.engineeringdigest.ecommerce.actuator;
+
+import lombok.RequiredArgsConstructor;
+import net.engineeringdigest.ecommerce.dto.ReindexStatus;
+import net.engineeringdigest.ecommerce.service.ProductReindexService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "reindex")
+@RequiredArgsConstructor
+public class ProductReindexEndpoint {
+    private final ProductReindexService productReindexService;
+
+    @ReadOperation
+    public ReindexStatus status() {
+        return productReindexService.getStatus();
+    }
+}
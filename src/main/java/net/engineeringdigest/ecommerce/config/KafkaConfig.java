@@ -1,5 +1,6 @@
 package net.engineeringdigest.ecommerce.config;
 
+import net.engineeringdigest.ecommerce.constant.AppConstants;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -37,6 +38,14 @@ public class KafkaConfig {
                 .build();
     }
 
+    @Bean
+    public NewTopic productEventsTopic() {
+        return TopicBuilder.name(AppConstants.PRODUCT_EVENTS_TOPIC)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
     @Bean
     public NewTopic testTopic() {
         return TopicBuilder.name("test-topic")
@@ -1,19 +1,27 @@
 package net.engineeringdigest.ecommerce.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
 public class KafkaConsumerConfig {
+    private static final Logger log = LoggerFactory.getLogger(KafkaConsumerConfig.class);
 
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
@@ -38,4 +46,38 @@ public class KafkaConsumerConfig {
         factory.setConsumerFactory(consumerFactory());
         return factory;
     }
+
+    /**
+     * Batch listener for the search indexer. Offsets are committed only after the listener
+     * returns, i.e. after the batch is in Elasticsearch. A failed batch is retried with
+     * backoff for up to max-elapsed-ms; after that its events are logged, counted and skipped
+     * so that one bad batch cannot hold up the partition for good.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> productIndexerListenerContainerFactory(
+            @Value("${app.search.indexer.batch-size:500}") int batchSize,
+            @Value("${app.search.indexer.initial-backoff-ms:200}") long initialBackoffMs,
+            @Value("${app.search.indexer.max-backoff-ms:10000}") long maxBackoffMs,
+            @Value("${app.search.indexer.max-elapsed-ms:300000}") long maxElapsedMs,
+            MeterRegistry meterRegistry) {
+        Map<String, Object> props = new HashMap<>(consumerFactory().getConfigurationProperties());
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        ExponentialBackOff backOff = new ExponentialBackOff(initialBackoffMs, 2.0);
+        backOff.setMaxInterval(maxBackoffMs);
+        backOff.setMaxElapsedTime(maxElapsedMs);
+        Counter skipped = meterRegistry.counter("search.indexer.events.skipped");
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(new DefaultErrorHandler((record, e) -> {
+            log.error("Giving up on product change event at {}-{}@{}: {}",
+                record.topic(), record.partition(), record.offset(), e.getMessage());
+            skipped.increment();
+        }, backOff));
+        return factory;
+    }
 }
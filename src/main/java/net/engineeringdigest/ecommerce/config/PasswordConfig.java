@@ -1,15 +1,27 @@
 package net.engineeringdigest.ecommerce.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import net.engineeringdigest.ecommerce.security.BoundedPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 @Configuration
 public class PasswordConfig {
     
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${app.security.password.bcrypt-strength:10}") int strength,
+                                           @Value("${app.security.password.workers:0}") int workers,
+                                           @Value("${app.security.password.queue-capacity:32}") int queueCapacity,
+                                           @Value("${app.security.password.timeout:PT2S}") Duration timeout) {
+        // Default to half the cores so hashing never starves request handling
+        int poolSize = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueCapacity, timeout,
+            meterRegistry);
     }
 }
@@ -0,0 +1,133 @@
+package net.engineeringdigest.ecommerce.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Redis value serializer writing a small versioned header in front of the payload:
+ * <pre>
+ *   byte 0  codec version (currently 1)
+ *   byte 1  payload format (1 = Smile, 2 = JSON)
+ *   byte 2  compression (0 = none, 1 = LZ4, followed by the 4-byte uncompressed length)
+ * </pre>
+ * Every format is always readable, so the write format can be switched across a rolling
+ * upgrade. Values without a header are JSON written by the previous
+ * GenericJackson2JsonRedisSerializer setup and are read as untyped JSON.
+ */
+public class RedisValueCodec implements RedisSerializer<Object> {
+    public static final byte VERSION = 1;
+
+    private static final int HEADER_SIZE = 3;
+    private static final byte FORMAT_SMILE = 1;
+    private static final byte FORMAT_JSON = 2;
+    private static final byte COMPRESSION_NONE = 0;
+    private static final byte COMPRESSION_LZ4 = 1;
+
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper legacyMapper;
+    private final byte writeFormat;
+    private final boolean compress;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    public RedisValueCodec(ObjectMapper objectMapper, String format, boolean compress, int compressionThreshold) {
+        BasicPolymorphicTypeValidator validator = BasicPolymorphicTypeValidator.builder()
+            .allowIfSubType("net.engineeringdigest.ecommerce.")
+            .allowIfSubType("java.util.")
+            .allowIfSubType("java.time.")
+            .allowIfSubType("java.math.")
+            .allowIfSubType("java.lang.")
+            .build();
+        // Class names are only written for non-final types, so Strings, numbers and booleans
+        // stay compact
+        this.smileMapper = objectMapper.copyWith(new SmileFactory())
+            .activateDefaultTyping(validator, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        this.jsonMapper = objectMapper.copy()
+            .activateDefaultTyping(validator, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        this.legacyMapper = objectMapper;
+        this.writeFormat = switch (format.toLowerCase()) {
+            case "smile" -> FORMAT_SMILE;
+            case "json" -> FORMAT_JSON;
+            default -> throw new IllegalArgumentException("Unknown Redis value format: " + format);
+        };
+        this.compress = compress;
+        this.compressionThreshold = compressionThreshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            byte[] payload = (writeFormat == FORMAT_SMILE ? smileMapper : jsonMapper).writeValueAsBytes(value);
+            if (!compress || payload.length < compressionThreshold) {
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+                buffer.put(VERSION).put(writeFormat).put(COMPRESSION_NONE).put(payload);
+                return buffer.array();
+            }
+
+            byte[] compressed = new byte[compressor.maxCompressedLength(payload.length)];
+            int length = compressor.compress(payload, 0, payload.length, compressed, 0, compressed.length);
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 + length);
+            buffer.put(VERSION).put(writeFormat).put(COMPRESSION_LZ4)
+                .putInt(payload.length)
+                .put(compressed, 0, length);
+            return buffer.array();
+        } catch (Exception e) {
+            throw new SerializationException("Could not write Redis value", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes[0] != VERSION) {
+                return legacyMapper.readValue(bytes, Object.class);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            buffer.get();
+            byte format = buffer.get();
+            byte compression = buffer.get();
+
+            byte[] payload;
+            if (compression == COMPRESSION_LZ4) {
+                int length = buffer.getInt();
+                payload = new byte[length];
+                decompressor.decompress(bytes, buffer.position(), payload, 0, length);
+            } else if (compression == COMPRESSION_NONE) {
+                payload = Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length);
+            } else {
+                throw new SerializationException("Unknown Redis value compression: " + compression);
+            }
+
+            return switch (format) {
+                case FORMAT_SMILE -> smileMapper.readValue(payload, Object.class);
+                case FORMAT_JSON -> jsonMapper.readValue(payload, Object.class);
+                default -> throw new SerializationException("Unknown Redis value format: " + format);
+            };
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializationException("Could not read Redis value", e);
+        }
+    }
+}
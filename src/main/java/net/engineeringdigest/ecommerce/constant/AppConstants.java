@@ -11,17 +11,19 @@ public final class AppConstants {
     // Kafka Topics
     public static final String ORDERS_TOPIC = "orders";
     public static final String AUDIT_LOGS_TOPIC = "audit-logs";
+    public static final String PRODUCT_EVENTS_TOPIC = "product-events";
 
     // Security Constants
     public static final String TOKEN_PREFIX = "Bearer ";
     public static final String HEADER_STRING = "Authorization";
-    public static final long TOKEN_EXPIRATION = 864_000_000; // 10 days
 
     // Pagination Constants
     public static final String DEFAULT_PAGE_NUMBER = "0";
     public static final String DEFAULT_PAGE_SIZE = "10";
     public static final String DEFAULT_SORT_BY = "id";
     public static final String DEFAULT_SORT_DIRECTION = "asc";
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_SEARCH_RESULT_WINDOW = 10_000;
 
     // API Endpoints
     public static final String API_BASE_PATH = "/api/v1";
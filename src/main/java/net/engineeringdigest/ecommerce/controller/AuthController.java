@@ -1,15 +1,23 @@
 package net.engineeringdigest.ecommerce.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import net.engineeringdigest.ecommerce.dto.LoginRequest;
 import net.engineeringdigest.ecommerce.dto.LoginResponse;
 import net.engineeringdigest.ecommerce.dto.SignupRequest;
 import net.engineeringdigest.ecommerce.dto.ErrorResponse;
 import net.engineeringdigest.ecommerce.entity.User;
-import net.engineeringdigest.ecommerce.security.JwtTokenProvider;
+import net.engineeringdigest.ecommerce.exception.ServiceBusyException;
+import net.engineeringdigest.ecommerce.security.JwtTokenService;
+import net.engineeringdigest.ecommerce.security.LoginThrottle;
+import net.engineeringdigest.ecommerce.dto.RefreshTokenRequest;
+import net.engineeringdigest.ecommerce.service.RefreshTokenService;
 import net.engineeringdigest.ecommerce.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
@@ -17,8 +25,10 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -30,8 +40,10 @@ public class AuthController {
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
     
     private final AuthenticationManager authenticationManager;
-    private final JwtTokenProvider tokenProvider;
+    private final JwtTokenService jwtTokenService;
+    private final RefreshTokenService refreshTokenService;
     private final UserService userService;
+    private final LoginThrottle loginThrottle;
     
     @PostMapping("/signup")
     public ResponseEntity<?> signup(@RequestBody SignupRequest signupRequest) {
@@ -40,6 +52,9 @@ public class AuthController {
             User user = userService.createUser(signupRequest);
             log.info("Successfully created user: {}", user.getUsername());
             return ResponseEntity.ok("User registered successfully");
+        } catch (ServiceBusyException e) {
+            log.warn("Signup rejected, password hashing saturated: {}", signupRequest.getUsername());
+            return busy(e);
         } catch (Exception e) {
             log.error("Failed to create user: {}", signupRequest.getUsername(), e);
             return ResponseEntity
@@ -53,8 +68,23 @@ public class AuthController {
     }
     
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
         log.info("Received login request for user: {}", loginRequest.getUsername());
+        // Already resolved through trusted proxies (server.forward-headers-strategy)
+        String clientIp = request.getRemoteAddr();
+        // Refused before any password hashing is done
+        long retryAfter = loginThrottle.retryAfterSeconds(loginRequest.getUsername(), clientIp);
+        if (retryAfter > 0) {
+            log.warn("Login throttled for user: {} from {}", loginRequest.getUsername(), clientIp);
+            return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(new ErrorResponse(
+                    HttpStatus.TOO_MANY_REQUESTS.value(),
+                    "Too many failed login attempts",
+                    "Retry after " + retryAfter + " seconds"
+                ));
+        }
         try {
             Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -64,12 +94,17 @@ public class AuthController {
             );
             
             SecurityContextHolder.getContext().setAuthentication(authentication);
-            String jwt = tokenProvider.generateToken(authentication);
+            LoginResponse tokens = refreshTokenService.login((UserDetails) authentication.getPrincipal());
+            loginThrottle.recordSuccess(loginRequest.getUsername());
             
             log.info("Successfully authenticated user: {}", loginRequest.getUsername());
-            return ResponseEntity.ok(new LoginResponse(jwt, loginRequest.getUsername()));
+            return ResponseEntity.ok(tokens);
+        } catch (ServiceBusyException e) {
+            log.warn("Login rejected, password hashing saturated: {}", loginRequest.getUsername());
+            return busy(e);
         } catch (AuthenticationException e) {
             log.error("Authentication failed for user: {}", loginRequest.getUsername(), e);
+            loginThrottle.recordFailure(loginRequest.getUsername(), clientIp);
             return ResponseEntity
                 .status(HttpStatus.UNAUTHORIZED)
                 .body(new ErrorResponse(
@@ -79,4 +114,54 @@ public class AuthController {
                 ));
         }
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenRequest request) {
+        try {
+            LoginResponse tokens = refreshTokenService.refresh(request.getRefreshToken());
+            log.info("Refreshed tokens for user: {}", tokens.getUsername());
+            return ResponseEntity.ok(tokens);
+        } catch (AuthenticationException e) {
+            log.warn("Token refresh rejected: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.UNAUTHORIZED)
+                .body(new ErrorResponse(
+                    HttpStatus.UNAUTHORIZED.value(),
+                    "Token refresh failed",
+                    e.getMessage()
+                ));
+        }
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        try {
+            Claims claims = jwtTokenService.parse(authorization.substring("Bearer ".length()));
+            String sessionId = claims.get(JwtTokenService.SESSION_ID_CLAIM, String.class);
+            if (sessionId != null) {
+                refreshTokenService.revokeSession(sessionId);
+            }
+            log.info("Logged out user: {}", claims.getSubject());
+            return ResponseEntity.noContent().build();
+        } catch (JwtException | IndexOutOfBoundsException e) {
+            return ResponseEntity
+                .status(HttpStatus.UNAUTHORIZED)
+                .body(new ErrorResponse(
+                    HttpStatus.UNAUTHORIZED.value(),
+                    "Logout failed",
+                    e.getMessage()
+                ));
+        }
+    }
+
+    private ResponseEntity<ErrorResponse> busy(ServiceBusyException e) {
+        return ResponseEntity
+            .status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service busy",
+                e.getMessage()
+            ));
+    }
 }
@@ -0,0 +1,46 @@
+package net.engineeringdigest.ecommerce.controller;
+
+import lombok.RequiredArgsConstructor;
+import net.engineeringdigest.ecommerce.dto.InventoryReservation;
+import net.engineeringdigest.ecommerce.service.InventoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/inventory")
+@RequiredArgsConstructor
+public class InventoryController {
+    private static final Logger log = LoggerFactory.getLogger(InventoryController.class);
+    private final InventoryService inventoryService;
+
+    @GetMapping("/{productId}")
+    public ResponseEntity<Map<String, Object>> getAvailable(@PathVariable String productId) {
+        long available = inventoryService.getAvailable(productId);
+        return ResponseEntity.ok(Map.of("productId", productId, "available", available));
+    }
+
+    @PostMapping("/{productId}/reservations")
+    public ResponseEntity<InventoryReservation> reserve(@PathVariable String productId, @RequestParam int quantity) {
+        log.info("Reserving {} of product {}", quantity, productId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(inventoryService.reserve(productId, quantity));
+    }
+
+    @PostMapping("/reservations/{reservationId}/commit")
+    public ResponseEntity<Void> commit(@PathVariable String reservationId) {
+        log.info("Committing reservation {}", reservationId);
+        inventoryService.commit(reservationId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<Void> release(@PathVariable String reservationId) {
+        log.info("Releasing reservation {}", reservationId);
+        inventoryService.release(reservationId);
+        return ResponseEntity.noContent().build();
+    }
+}
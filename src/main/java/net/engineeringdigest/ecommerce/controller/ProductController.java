@@ -4,18 +4,40 @@ import lombok.RequiredArgsConstructor;
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import net.engineeringdigest.ecommerce.constant.AppConstants;
+import net.engineeringdigest.ecommerce.dto.CursorPage;
+import net.engineeringdigest.ecommerce.dto.ImportReport;
+import net.engineeringdigest.ecommerce.dto.ProductSummary;
 import net.engineeringdigest.ecommerce.entity.Product;
 import net.engineeringdigest.ecommerce.entity.Review;
+import net.engineeringdigest.ecommerce.enums.SearchOperator;
+import net.engineeringdigest.ecommerce.service.ProductExportService;
+import net.engineeringdigest.ecommerce.service.ProductImportService;
 import net.engineeringdigest.ecommerce.service.ProductService;
+import net.engineeringdigest.ecommerce.service.StockAdjustmentService;
 import net.engineeringdigest.ecommerce.dto.ErrorResponse;
 
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,8 +47,20 @@ import java.util.Optional;
 public class ProductController {
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final StockAdjustmentService stockAdjustmentService;
+    private final ProductImportService productImportService;
     private final MongoTemplate mongoTemplate;
 
+    @Value("${app.http.cache.product-max-age:PT30S}")
+    private Duration productMaxAge;
+
+    @Value("${app.http.cache.listing-max-age:PT10S}")
+    private Duration listingMaxAge;
+
+    @Value("${app.export.timeout:PT30M}")
+    private Duration exportTimeout;
+
     @PostMapping
     public ResponseEntity<?> createProduct(@RequestBody Product product) {
         try {
@@ -43,10 +77,21 @@ public class ProductController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProduct(@PathVariable String id) {
+    public ResponseEntity<?> getProduct(@PathVariable String id, ServletWebRequest webRequest) {
         try {
             log.info("Fetching product with id: {}", id);
+            // Served from the product cache, so a revalidation does not reach Mongo
             Optional<Product> product = Optional.ofNullable(productService.getProduct(id));
+            if (product.isPresent()) {
+                Product current = product.get();
+                String etag = current.getVersion() == null ? null : current.getVersion().toString();
+                long lastModified = current.getUpdatedAt() == null
+                    ? -1
+                    : current.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                if (notModified(webRequest, etag, lastModified, productMaxAge)) {
+                    return null;
+                }
+            }
             return product
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -60,16 +105,26 @@ public class ProductController {
 
     @GetMapping
     public ResponseEntity<?> getAllProducts(
-            @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size,
-            @RequestParam(required = false) String sortBy) {
+            @RequestParam(defaultValue = AppConstants.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(defaultValue = AppConstants.DEFAULT_SORT_BY) String sortBy,
+            @RequestParam(defaultValue = AppConstants.DEFAULT_SORT_DIRECTION) String direction,
+            @RequestParam(required = false) String cursor,
+            ServletWebRequest webRequest) {
         try {
-            log.info("Fetching all products with page: {}, size: {}, sortBy: {}", page, size, sortBy);
-            List<Product> products = productService.getAllProducts();
-            if (products.isEmpty()) {
+            log.info("Fetching products with size: {}, sortBy: {}, direction: {}", size, sortBy, direction);
+            if (notModified(webRequest, productService.getListingETag(), -1, listingMaxAge)) {
+                return null;
+            }
+            CursorPage<ProductSummary> products = productService.getProducts(null, sortBy, direction, cursor, size);
+            if (products.getItems().isEmpty() && cursor == null) {
                 return ResponseEntity.noContent().build();
             }
             return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid product listing request: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Invalid listing request", e.getMessage()));
         } catch (Exception e) {
             log.error("Error fetching products: {}", e.getMessage());
             return ResponseEntity
@@ -78,15 +133,62 @@ public class ProductController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> getProductsBatch(@RequestBody List<String> ids) {
+        try {
+            log.info("Fetching {} products in batch", ids.size());
+            List<Product> products = productService.getProducts(ids);
+            return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid batch request: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Invalid batch request", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching products in batch: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Failed to fetch products", e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            HttpServletResponse response) {
+        log.info("Exporting products since: {}", since);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        // Exports stream for as long as the client keeps reading, so only they get the long timeout
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            productExportService.export(since, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
     @GetMapping("/category/{category}")
-    public ResponseEntity<?> getProductsByCategory(@PathVariable String category) {
+    public ResponseEntity<?> getProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(defaultValue = AppConstants.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(defaultValue = AppConstants.DEFAULT_SORT_BY) String sortBy,
+            @RequestParam(defaultValue = AppConstants.DEFAULT_SORT_DIRECTION) String direction,
+            @RequestParam(required = false) String cursor,
+            ServletWebRequest webRequest) {
         try {
-            log.info("Fetching products in category: {}", category);
-            List<Product> products = productService.getProductsByCategory(category);
-            if (products.isEmpty()) {
+            log.info("Fetching products in category: {} with size: {}, sortBy: {}, direction: {}", category, size, sortBy, direction);
+            if (notModified(webRequest, productService.getListingETag(), -1, listingMaxAge)) {
+                return null;
+            }
+            CursorPage<ProductSummary> products = productService.getProducts(category, sortBy, direction, cursor, size);
+            if (products.getItems().isEmpty() && cursor == null) {
                 return ResponseEntity.noContent().build();
             }
             return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid category listing request: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Invalid listing request", e.getMessage()));
         } catch (Exception e) {
             log.error("Error fetching products by category: {}", e.getMessage());
             return ResponseEntity
@@ -102,6 +204,11 @@ public class ProductController {
             log.info("User {} updating product with id: {}", authentication.getName(), id);
             Product updatedProduct = productService.updateProduct(id, product);
             return ResponseEntity.ok(updatedProduct);
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Conflicting update of product {}: {}", id, e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(new ErrorResponse(HttpStatus.CONFLICT.value(), "Product was modified concurrently", e.getMessage()));
         } catch (Exception e) {
             log.error("Error updating product: {}", e.getMessage());
             return ResponseEntity
@@ -126,14 +233,24 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchProducts(@RequestParam String query) {
+    public ResponseEntity<?> searchProducts(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "and") String operator,
+            @RequestParam(defaultValue = AppConstants.DEFAULT_PAGE_NUMBER) int page,
+            @RequestParam(defaultValue = AppConstants.DEFAULT_PAGE_SIZE) int size) {
         try {
-            log.info("Searching products with query: {}", query);
-            List<Product> products = productService.searchProducts(query);
+            log.info("Searching products with query: {}, operator: {}, page: {}, size: {}", query, operator, page, size);
+            SearchOperator searchOperator = SearchOperator.valueOf(operator.toUpperCase());
+            List<ProductSummary> products = productService.searchProducts(query, searchOperator, page, size);
             if (products.isEmpty()) {
                 return ResponseEntity.noContent().build();
             }
             return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid search request: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Invalid search request", e.getMessage()));
         } catch (Exception e) {
             log.error("Error searching products: {}", e.getMessage());
             return ResponseEntity
@@ -148,6 +265,41 @@ public class ProductController {
         return ResponseEntity.ok(productService.updateStock(id, quantity));
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        try {
+            log.info("Importing products from {} body", contentType);
+            boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+            ImportReport report = ndjson
+                ? productImportService.importNdjson(body)
+                : productImportService.importCsv(body);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid product import: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Invalid import", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error importing products: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Failed to import products", e.getMessage()));
+        }
+    }
+
+    @PostMapping(value = "/stock/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<?> bulkUpdateStock(InputStream body) {
+        try {
+            log.info("Applying bulk stock adjustments");
+            return ResponseEntity.ok(stockAdjustmentService.apply(body));
+        } catch (Exception e) {
+            log.error("Error applying bulk stock adjustments: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Failed to apply stock adjustments", e.getMessage()));
+        }
+    }
+
     @PostMapping("/{productId}/reviews")
     public ResponseEntity<Review> addReview(@PathVariable String productId, @RequestBody Review review) {
         log.info("Adding review for product with id: {}", productId);
@@ -155,6 +307,15 @@ public class ProductController {
                 .body(productService.addReview(productId, review));
     }
 
+    @GetMapping("/{productId}/reviews")
+    public ResponseEntity<List<Review>> getReviews(
+            @PathVariable String productId,
+            @RequestParam(defaultValue = AppConstants.DEFAULT_PAGE_NUMBER) int page,
+            @RequestParam(defaultValue = AppConstants.DEFAULT_PAGE_SIZE) int size) {
+        log.info("Fetching reviews for product {} with page: {}, size: {}", productId, page, size);
+        return ResponseEntity.ok(productService.getReviews(productId, page, size));
+    }
+
     @PutMapping("/{productId}/reviews/{reviewId}")
     public ResponseEntity<Review> updateReview(
             @PathVariable String productId,
@@ -174,4 +335,19 @@ public class ProductController {
                 .body("Failed to connect to MongoDB: " + e.getMessage());
         }
     }
+
+    /**
+     * Sets Cache-Control and the validators on the response and checks the request's
+     * If-None-Match / If-Modified-Since against them. When this returns true the response is
+     * already a 304 and the handler should return null without building a body.
+     */
+    private boolean notModified(ServletWebRequest webRequest, String etag, long lastModified, Duration maxAge) {
+        // Set explicitly so Spring Security's default no-store header is not applied
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL,
+            CacheControl.maxAge(maxAge).cachePrivate().getHeaderValue());
+        // The same version is served as JSON, CBOR or Smile, possibly gzipped, so the tag is weak:
+        // it identifies the content, not the bytes of one representation
+        webRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return webRequest.checkNotModified(etag == null ? null : "W/\"" + etag + "\"", lastModified);
+    }
 }
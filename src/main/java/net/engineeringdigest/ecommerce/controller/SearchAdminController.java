@@ -0,0 +1,47 @@
+package net.engineeringdigest.ecommerce.controller;
+
+import lombok.RequiredArgsConstructor;
+import net.engineeringdigest.ecommerce.dto.ErrorResponse;
+import net.engineeringdigest.ecommerce.dto.ReindexStatus;
+import net.engineeringdigest.ecommerce.service.ProductReindexService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/search")
+@RequiredArgsConstructor
+public class SearchAdminController {
+    private static final Logger log = LoggerFactory.getLogger(SearchAdminController.class);
+    private final ProductReindexService productReindexService;
+
+    @PostMapping("/reindex")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> startReindex() {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            log.info("Admin {} starting product reindex", authentication.getName());
+            ReindexStatus status = productReindexService.startReindex();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+        } catch (IllegalStateException e) {
+            log.error("Cannot start reindex: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(new ErrorResponse(HttpStatus.CONFLICT.value(), "Reindex not started", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/reindex")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReindexStatus> getReindexStatus() {
+        return ResponseEntity.ok(productReindexService.getStatus());
+    }
+}
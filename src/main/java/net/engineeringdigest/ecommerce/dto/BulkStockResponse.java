@@ -0,0 +1,17 @@
+package net.engineeringdigest.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStockResponse {
+    private int received;
+    private int updated;
+    private int rejected;
+    private List<StockAdjustmentResult> results;
+}
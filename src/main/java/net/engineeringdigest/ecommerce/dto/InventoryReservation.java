@@ -0,0 +1,20 @@
+package net.engineeringdigest.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservation {
+    private String reservationId;
+    private String productId;
+    private int quantity;
+    private long remainingStock;
+    private LocalDateTime expiresAt;
+}
@@ -10,4 +10,5 @@ import lombok.NoArgsConstructor;
 public class LoginResponse {
     private String token;
     private String username;
+    private String refreshToken;
 }
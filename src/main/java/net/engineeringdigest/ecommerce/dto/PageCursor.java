@@ -0,0 +1,41 @@
+package net.engineeringdigest.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.bson.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination: the sort it was issued for plus the sort
+ * key and id of the last item returned. Serialised as base64url extended JSON so that typed
+ * values such as dates survive the round trip.
+ */
+@Data
+@AllArgsConstructor
+public class PageCursor {
+    private String sortBy;
+    private String direction;
+    private Object value;
+    private Object id;
+
+    public String encode() {
+        String json = new Document("s", sortBy)
+            .append("d", direction)
+            .append("v", value)
+            .append("i", id)
+            .toJson();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            Document document = Document.parse(json);
+            return new PageCursor(document.getString("s"), document.getString("d"), document.get("v"), document.get("i"));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package net.engineeringdigest.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.engineeringdigest.ecommerce.enums.ProductChangeType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeEvent {
+    private String productId;
+    private ProductChangeType type;
+    private long timestamp;
+}
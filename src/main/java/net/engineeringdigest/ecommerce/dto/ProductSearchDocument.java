@@ -0,0 +1,47 @@
+package net.engineeringdigest.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.engineeringdigest.ecommerce.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchDocument {
+    private String id;
+    private String name;
+    private String description;
+    private String category;
+    private BigDecimal price;
+    private int stockQuantity;
+    private String imageUrl;
+    private boolean active;
+    private Long createdAt;
+    private Long updatedAt;
+
+    public static ProductSearchDocument from(Product product) {
+        return ProductSearchDocument.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .category(product.getCategory())
+                .price(product.getPrice())
+                .stockQuantity(product.getStockQuantity())
+                .imageUrl(product.getImageUrl())
+                .active(product.isActive())
+                .createdAt(toEpochMillis(product.getCreatedAt()))
+                .updatedAt(toEpochMillis(product.getUpdatedAt()))
+                .build();
+    }
+
+    private static Long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
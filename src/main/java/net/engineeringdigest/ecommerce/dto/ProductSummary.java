@@ -0,0 +1,39 @@
+package net.engineeringdigest.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.entity.RatingSummary;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummary {
+    // Stored fields a summary is built from; used as the Mongo projection
+    public static final List<String> FIELDS = List.of("name", "price", "imageUrl", "rating.count", "rating.sum");
+
+    private String id;
+    private String name;
+    private BigDecimal price;
+    private String imageUrl;
+    private double averageRating;
+    private long ratingCount;
+
+    public static ProductSummary from(Product product) {
+        RatingSummary rating = product.getRating();
+        return ProductSummary.builder()
+            .id(product.getId())
+            .name(product.getName())
+            .price(product.getPrice())
+            .imageUrl(product.getImageUrl())
+            .averageRating(rating == null ? 0 : rating.getAverage())
+            .ratingCount(rating == null ? 0 : rating.getCount())
+            .build();
+    }
+}
@@ -0,0 +1,27 @@
+package net.engineeringdigest.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReindexStatus {
+    private String state;
+    private String index;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long totalDocuments;
+    private long indexedDocuments;
+    private long failedDocuments;
+    private int partitions;
+    private int completedPartitions;
+    private double progressPercent;
+    private double docsPerSecond;
+    private String error;
+}
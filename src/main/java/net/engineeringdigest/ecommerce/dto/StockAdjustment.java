@@ -0,0 +1,18 @@
+package net.engineeringdigest.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a bulk stock upload: either a relative {@code delta} or an absolute
+ * {@code quantity}, never both.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustment {
+    private String productId;
+    private Integer delta;
+    private Integer quantity;
+}
@@ -5,12 +5,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Data
 @Builder
@@ -29,6 +28,10 @@ public class Product {
     private boolean active;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Bumped by every write; clients send it back on update to detect concurrent edits
+    @Version
+    private Long version;
+    // Reviews themselves live in the reviews collection
     @Builder.Default
-    private List<Review> reviews = new ArrayList<>();
+    private RatingSummary rating = new RatingSummary();
 }
@@ -0,0 +1,31 @@
+package net.engineeringdigest.ecommerce.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Review aggregate embedded in a product and maintained with {@code $inc} as reviews are added
+ * or changed. Histogram keys are the ratings "1" to "5".
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+// average is derived; accept it back when reading cached or exported JSON
+@JsonIgnoreProperties(value = "average", allowGetters = true)
+public class RatingSummary {
+    private long count;
+    private long sum;
+    @Builder.Default
+    private Map<String, Long> histogram = new HashMap<>();
+
+    public double getAverage() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+}
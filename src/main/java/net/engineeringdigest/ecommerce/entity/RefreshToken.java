@@ -0,0 +1,28 @@
+package net.engineeringdigest.ecommerce.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// Only the SHA-256 of the token is stored; expirationDate carries a TTL index (init-mongo.js)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+    @Id
+    private String id;
+    private String tokenHash;
+    private String username;
+    // Shared by every token rotated from the same login; also the access tokens' sid claim
+    private String familyId;
+    private boolean used;
+    private Date createdAt;
+    private Date expirationDate;
+}
@@ -0,0 +1,24 @@
+package net.engineeringdigest.ecommerce.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// Kept until every refresh token of the family would have expired; expirationDate carries a TTL index (init-mongo.js)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "revoked_sessions")
+public class RevokedSession {
+    // The refresh token family id
+    @Id
+    private String id;
+    private Date revokedAt;
+    private Date expirationDate;
+}
@@ -0,0 +1,9 @@
+package net.engineeringdigest.ecommerce.enums;
+
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    STOCK_UPDATED,
+    REVIEW_ADDED,
+    DELETED
+}
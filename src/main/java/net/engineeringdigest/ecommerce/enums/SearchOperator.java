@@ -0,0 +1,6 @@
+package net.engineeringdigest.ecommerce.enums;
+
+public enum SearchOperator {
+    AND,
+    OR
+}
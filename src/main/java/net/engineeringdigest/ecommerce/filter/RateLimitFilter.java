@@ -0,0 +1,231 @@
+package net.engineeringdigest.ecommerce.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.engineeringdigest.ecommerce.dto.ErrorResponse;
+import net.engineeringdigest.ecommerce.security.PrincipalCache;
+import net.engineeringdigest.ecommerce.security.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token-bucket rate limiting per client and route, applied before authentication. The
+ * authoritative buckets live in Redis; each node leases a few tokens at a time into a local
+ * bucket, so most requests are admitted without a network call. A lease starts at one token
+ * and doubles, up to {@code lease-size}, while the client keeps using it up before it
+ * expires; tokens left in an expired lease are handed back to Redis and the next lease is
+ * halved, so quiet clients do not strand quota on a node. A denial is remembered locally until
+ * its retry time. Overshoot across the cluster is bounded by one lease per node. Redis errors
+ * admit the request. Refill runs on the Redis clock; the node clock only times its own leases
+ * and denials.
+ *
+ * Routes come from {@code app.rate-limit.routes}, each with its own path prefixes and limits,
+ * matched on the path below the servlet context path, longest prefix first. Other requests
+ * share the default limits.
+ *
+ * Clients are identified by username when the bearer token has already been verified on this
+ * node, otherwise by remote address.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final String KEY_PREFIX = "ratelimit:";
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LEASE = script();
+
+    private final StringRedisTemplate redisTemplate;
+    private final PrincipalCache principalCache;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, LocalBucket> buckets;
+    private final Route defaultRoute;
+    private final List<PathRoute> routes = new ArrayList<>();
+    private final boolean enabled;
+    private final int leaseSize;
+    private final long leaseTtlMillis;
+
+    public RateLimitFilter(StringRedisTemplate redisTemplate,
+                           PrincipalCache principalCache,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           Environment environment,
+                           @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.lease-size:10}") int leaseSize,
+                           @Value("${app.rate-limit.lease-ttl:PT1S}") Duration leaseTtl,
+                           @Value("${app.rate-limit.max-local-buckets:100000}") long maxLocalBuckets,
+                           @Value("${app.rate-limit.default.capacity:100}") int defaultCapacity,
+                           @Value("${app.rate-limit.default.refill-per-second:50}") double defaultRefill) {
+        this.redisTemplate = redisTemplate;
+        this.principalCache = principalCache;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.leaseSize = leaseSize;
+        this.leaseTtlMillis = leaseTtl.toMillis();
+        this.defaultRoute = new Route("default", defaultCapacity, defaultRefill);
+        Binder.get(environment)
+            .bind("app.rate-limit.routes", Bindable.mapOf(String.class, RouteSettings.class))
+            .orElse(Map.of())
+            .forEach((name, settings) -> {
+                Route route = new Route(name, settings.capacity(), settings.refillPerSecond());
+                for (String prefix : settings.pathPrefixes()) {
+                    routes.add(new PathRoute(prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix, route));
+                }
+            });
+        routes.sort(Comparator.comparingInt((PathRoute route) -> route.prefix().length()).reversed());
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxLocalBuckets)
+            .expireAfterAccess(Duration.ofMinutes(1))
+            .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Route route = route(request);
+        long retryAfterMillis = acquire(route, route.name() + ":" + clientId(request));
+        if (retryAfterMillis == 0) {
+            meterRegistry.counter("ratelimit.requests", "route", route.name(), "result", "allowed").increment();
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        meterRegistry.counter("ratelimit.requests", "route", route.name(), "result", "rejected").increment();
+        long retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+            HttpStatus.TOO_MANY_REQUESTS.value(),
+            "Rate limit exceeded",
+            "Retry after " + retryAfterSeconds + " seconds"));
+    }
+
+    private Route route(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (PathRoute route : routes) {
+            if (path.startsWith(route.prefix())
+                    && (path.length() == route.prefix().length() || path.charAt(route.prefix().length()) == '/')) {
+                return route.route();
+            }
+        }
+        return defaultRoute;
+    }
+
+    private String clientId(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            // Only a token this node has verified before; an unverified subject could be forged
+            VerifiedToken verified = principalCache.get(authHeader.substring(7));
+            if (verified != null) {
+                return "user:" + verified.user().getUsername();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    // Millis until the client may retry, or 0 when the request is admitted
+    private long acquire(Route route, String key) {
+        LocalBucket bucket = buckets.get(key, k -> new LocalBucket());
+        synchronized (bucket) {
+            long now = System.currentTimeMillis();
+            if (now < bucket.blockedUntil) {
+                return bucket.blockedUntil - now;
+            }
+            if (bucket.tokens > 0 && now < bucket.leaseExpiresAt) {
+                bucket.tokens--;
+                return 0;
+            }
+
+            long unused = bucket.tokens;
+            int maxLease = Math.min(leaseSize, route.capacity());
+            if (unused > 0) {
+                bucket.leaseSize = Math.max(1, bucket.leaseSize / 2);
+            } else if (now < bucket.leaseExpiresAt) {
+                bucket.leaseSize = Math.min(maxLease, bucket.leaseSize * 2);
+            }
+            bucket.tokens = 0;
+
+            List<?> result;
+            try {
+                result = redisTemplate.execute(LEASE, List.of(KEY_PREFIX + key),
+                    String.valueOf(route.capacity()),
+                    String.valueOf(route.refillPerSecond()),
+                    String.valueOf(Math.min(bucket.leaseSize, maxLease)),
+                    String.valueOf(unused));
+            } catch (Exception e) {
+                log.debug("Rate limiter unavailable, admitting request: {}", e.getMessage());
+                return 0;
+            }
+            if (result == null || result.size() < 2) {
+                return 0;
+            }
+
+            long granted = ((Number) result.get(0)).longValue();
+            if (granted == 0) {
+                long retryAfter = Math.max(1, ((Number) result.get(1)).longValue());
+                bucket.blockedUntil = now + retryAfter;
+                return retryAfter;
+            }
+            bucket.tokens = granted - 1;
+            bucket.leaseExpiresAt = now + leaseTtlMillis;
+            return 0;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static RedisScript<List> script() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("redis/rate-limit-lease.lua"));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    private record Route(String name, int capacity, double refillPerSecond) {
+    }
+
+    private record PathRoute(String prefix, Route route) {
+    }
+
+    record RouteSettings(List<String> pathPrefixes, int capacity, double refillPerSecond) {
+    }
+
+    private static final class LocalBucket {
+        private long tokens;
+        private int leaseSize = 1;
+        private long leaseExpiresAt;
+        private long blockedUntil;
+    }
+}
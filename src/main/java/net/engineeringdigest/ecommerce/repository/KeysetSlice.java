@@ -0,0 +1,21 @@
+package net.engineeringdigest.ecommerce.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@AllArgsConstructor
+public class KeysetSlice<T> {
+    @Getter
+    private final List<T> items;
+    private final boolean hasNext;
+    @Getter
+    private final Object lastSortValue;
+    @Getter
+    private final Object lastId;
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+}
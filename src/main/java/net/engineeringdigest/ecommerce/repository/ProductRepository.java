@@ -1,15 +1,23 @@
 package net.engineeringdigest.ecommerce.repository;
 
 import net.engineeringdigest.ecommerce.entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
     List<Product> findByNameContainingIgnoreCase(String name);
     List<Product> findByCategory(String category);
-    List<Product> findByActive(boolean active);
-    List<Product> findByCategoryAndActive(String category, boolean active);
+    boolean existsByIdAndActive(String id, boolean active);
+
+    @Query(value = "{ 'active': true, '$or': [ "
+            + "{ 'name': { '$regex': ?0, '$options': 'i' } }, "
+            + "{ 'description': { '$regex': ?0, '$options': 'i' } }, "
+            + "{ 'category': { '$regex': ?0, '$options': 'i' } } ] }",
+            fields = "{ 'name': 1, 'price': 1, 'imageUrl': 1, 'rating.count': 1, 'rating.sum': 1 }")
+    List<Product> searchActiveSummaries(String pattern, Pageable pageable);
 }
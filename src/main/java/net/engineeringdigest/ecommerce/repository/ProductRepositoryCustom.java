@@ -0,0 +1,35 @@
+package net.engineeringdigest.ecommerce.repository;
+
+import net.engineeringdigest.ecommerce.entity.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+    /**
+     * Reads one keyset page of active products. When {@code fields} is given only those fields
+     * (plus the id and sort key) are fetched and the returned products are partial.
+     */
+    KeysetSlice<Product> findActiveSlice(String category, String sortField, Sort.Direction direction,
+                                         Object afterValue, Object afterId, int limit, Collection<String> fields);
+
+    // Active products among ids, with only the given fields populated, in no particular order
+    List<Product> findActiveByIds(Collection<String> ids, Collection<String> fields);
+
+    /**
+     * Atomically takes {@code quantity} from an active product's stock if enough is available.
+     * Returns the updated product, or {@code null} if the product is missing, inactive or
+     * short of stock.
+     */
+    Product decrementStock(String id, int quantity);
+
+    /**
+     * Applies {@code update} to an active product and returns the updated document, or
+     * {@code null} if there is no such product. When {@code expectedVersion} is given and the
+     * stored version differs, throws {@link org.springframework.dao.OptimisticLockingFailureException}.
+     * {@code operation} tags the written-bytes metric.
+     */
+    Product updateActive(String id, Long expectedVersion, Update update, String operation);
+}
@@ -0,0 +1,154 @@
+package net.engineeringdigest.ecommerce.repository;
+
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.engineeringdigest.ecommerce.entity.Product;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+    private static final String ID_FIELD = "_id";
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final UpdateMapper updateMapper;
+    private final Map<String, DistributionSummary> writeSizes = new ConcurrentHashMap<>();
+
+    // Mapping and encoding the update costs about as much as the write itself, so only one
+    // write in this many is measured
+    @Value("${app.metrics.write-size-sample-rate:100}")
+    private int writeSizeSampleRate;
+
+    public ProductRepositoryImpl(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.updateMapper = new UpdateMapper(mongoTemplate.getConverter());
+    }
+
+    @Override
+    public KeysetSlice<Product> findActiveSlice(String category, String sortField, Sort.Direction direction,
+                                                Object afterValue, Object afterId, int limit, Collection<String> fields) {
+        Criteria criteria = where("active").is(true);
+        if (category != null) {
+            criteria = criteria.and("category").is(category);
+        }
+        if (afterId != null) {
+            criteria = new Criteria().andOperator(criteria, after(sortField, direction, afterValue, afterId));
+        }
+
+        Sort sort = ID_FIELD.equals(sortField)
+            ? Sort.by(direction, ID_FIELD)
+            : Sort.by(direction, sortField).and(Sort.by(direction, ID_FIELD));
+        // One extra document tells us whether another page exists without a count query
+        Query query = Query.query(criteria).with(sort).limit(limit + 1);
+        if (fields != null) {
+            fields.forEach(field -> query.fields().include(field));
+            query.fields().include(sortField);
+        }
+
+        List<Document> documents = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Product.class));
+        boolean hasNext = documents.size() > limit;
+        if (hasNext) {
+            documents = documents.subList(0, limit);
+        }
+
+        List<Product> items = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            items.add(mongoTemplate.getConverter().read(Product.class, document));
+        }
+
+        Document last = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+        return new KeysetSlice<>(items, hasNext,
+            last == null ? null : last.get(sortField),
+            last == null ? null : last.get(ID_FIELD));
+    }
+
+    @Override
+    public List<Product> findActiveByIds(Collection<String> ids, Collection<String> fields) {
+        Query query = Query.query(where(ID_FIELD).in(ids).and("active").is(true));
+        fields.forEach(field -> query.fields().include(field));
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public Product decrementStock(String id, int quantity) {
+        // The guard and the $inc run as one document-level atomic operation, so concurrent
+        // decrements can neither lose updates nor drive stock below zero
+        Query query = Query.query(where(ID_FIELD).is(id)
+            .and("active").is(true)
+            .and("stockQuantity").gte(quantity));
+        Update update = new Update()
+            .inc("stockQuantity", -quantity)
+            .set("updatedAt", LocalDateTime.now())
+            .inc("version", 1);
+        return findAndModify(query, update, "stock");
+    }
+
+    @Override
+    public Product updateActive(String id, Long expectedVersion, Update update, String operation) {
+        Criteria criteria = where(ID_FIELD).is(id).and("active").is(true);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        Product updated = findAndModify(Query.query(criteria), update, operation);
+        if (updated == null && expectedVersion != null
+                && mongoTemplate.exists(Query.query(where(ID_FIELD).is(id).and("active").is(true)), Product.class)) {
+            throw new OptimisticLockingFailureException(
+                "Product " + id + " was modified concurrently; expected version " + expectedVersion);
+        }
+        return updated;
+    }
+
+    private Product findAndModify(Query query, Update update, String operation) {
+        recordWrite(operation, update);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Product.class);
+    }
+
+    // Size of the update document as sent to the server, i.e. what a write costs on the wire
+    private void recordWrite(String operation, Update update) {
+        if (writeSizeSampleRate <= 0 || ThreadLocalRandom.current().nextInt(writeSizeSampleRate) != 0) {
+            return;
+        }
+        Document mapped = updateMapper.getMappedObject(update.getUpdateObject(),
+            mongoTemplate.getConverter().getMappingContext().getPersistentEntity(Product.class));
+        int bytes = new RawBsonDocument(mapped, MongoClientSettings.getDefaultCodecRegistry().get(Document.class))
+            .getByteBuffer().remaining();
+        writeSizes.computeIfAbsent(operation, tag -> DistributionSummary.builder("product.write.bytes")
+                .baseUnit("bytes")
+                .tag("operation", tag)
+                .register(meterRegistry))
+            .record(bytes);
+    }
+
+    // Seeks past (afterValue, afterId) in the (sortField, _id) order
+    private Criteria after(String sortField, Sort.Direction direction, Object afterValue, Object afterId) {
+        boolean ascending = direction.isAscending();
+        Criteria idAfter = ascending ? where(ID_FIELD).gt(afterId) : where(ID_FIELD).lt(afterId);
+        if (ID_FIELD.equals(sortField)) {
+            return idAfter;
+        }
+        Criteria valueAfter = ascending ? where(sortField).gt(afterValue) : where(sortField).lt(afterValue);
+        Criteria sameValue = new Criteria().andOperator(where(sortField).is(afterValue), idAfter);
+        return new Criteria().orOperator(valueAfter, sameValue);
+    }
+}
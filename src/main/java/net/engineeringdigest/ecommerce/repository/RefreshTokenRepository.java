@@ -0,0 +1,13 @@
+package net.engineeringdigest.ecommerce.repository;
+
+import net.engineeringdigest.ecommerce.entity.RefreshToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    void deleteByFamilyId(String familyId);
+}
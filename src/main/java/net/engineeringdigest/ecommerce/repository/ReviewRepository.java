@@ -1,6 +1,7 @@
 package net.engineeringdigest.ecommerce.repository;
 
 import net.engineeringdigest.ecommerce.entity.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,8 +9,9 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ReviewRepository extends MongoRepository<Review, String> {
+public interface ReviewRepository extends MongoRepository<Review, String>, ReviewRepositoryCustom {
     List<Review> findByProductId(String productId);
+    List<Review> findByProductIdOrderByCreatedAtDesc(String productId, Pageable pageable);
     List<Review> findByUserId(String userId);
     Optional<Review> findByProductIdAndId(String productId, String reviewId);
     void deleteByProductId(String productId);
@@ -0,0 +1,12 @@
+package net.engineeringdigest.ecommerce.repository;
+
+import net.engineeringdigest.ecommerce.entity.Review;
+
+public interface ReviewRepositoryCustom {
+    /**
+     * Writes the editable fields of {@code review} only if its stored rating is still
+     * {@code expectedRating}, so the product's rating aggregate can be adjusted by the
+     * difference. Returns whether the review was updated.
+     */
+    boolean updateIfRatingUnchanged(Review review, int expectedRating);
+}
@@ -0,0 +1,25 @@
+package net.engineeringdigest.ecommerce.repository;
+
+import lombok.RequiredArgsConstructor;
+import net.engineeringdigest.ecommerce.entity.Review;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@RequiredArgsConstructor
+public class ReviewRepositoryImpl implements ReviewRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean updateIfRatingUnchanged(Review review, int expectedRating) {
+        Query query = Query.query(where("_id").is(review.getId()).and("rating").is(expectedRating));
+        Update update = new Update()
+            .set("userId", review.getUserId())
+            .set("rating", review.getRating())
+            .set("comment", review.getComment())
+            .set("updatedAt", review.getUpdatedAt());
+        return mongoTemplate.updateFirst(query, update, Review.class).getMatchedCount() > 0;
+    }
+}
@@ -0,0 +1,97 @@
+package net.engineeringdigest.ecommerce.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Issues and verifies access tokens. Signing keys are derived once at startup and the parser
+ * is built once and shared, as it is immutable and thread-safe.
+ *
+ * Tokens carry the signing key's id in the {@code kid} header. To rotate, move the current
+ * secret and id to {@code app.jwt.previous-secret}/{@code previous-key-id} and configure a new
+ * current pair: new tokens use the new key while existing ones stay valid until they expire.
+ * Tokens without a {@code kid}, issued before rotation support, are checked with the current key.
+ */
+@Component
+public class JwtTokenService {
+    // Login session (refresh token family) an access token belongs to
+    public static final String SESSION_ID_CLAIM = "sid";
+
+    private final String keyId;
+    private final SecretKey signingKey;
+    private final Map<String, Key> verificationKeys = new HashMap<>();
+    private final long expirationMs;
+    private final JwtParser parser;
+
+    public JwtTokenService(@Value("${app.jwt.secret}") String secret,
+                           @Value("${app.jwt.key-id:default}") String keyId,
+                           @Value("${app.jwt.previous-secret:}") String previousSecret,
+                           @Value("${app.jwt.previous-key-id:}") String previousKeyId,
+                           @Value("${app.jwt.expiration}") long expirationMs) {
+        this.keyId = keyId;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.expirationMs = expirationMs;
+        verificationKeys.put(keyId, signingKey);
+        if (!previousSecret.isEmpty()) {
+            if (previousKeyId.isEmpty() || previousKeyId.equals(keyId)) {
+                throw new IllegalStateException("app.jwt.previous-key-id must be set and differ from app.jwt.key-id");
+            }
+            verificationKeys.put(previousKeyId, Keys.hmacShaKeyFor(previousSecret.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        this.parser = Jwts.parserBuilder()
+            .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                @Override
+                public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                    String kid = header.getKeyId();
+                    Key key = verificationKeys.get(kid == null ? JwtTokenService.this.keyId : kid);
+                    if (key == null) {
+                        throw new JwtException("Unknown signing key: " + kid);
+                    }
+                    return key;
+                }
+            })
+            .build();
+    }
+
+    public String generateToken(UserDetails userDetails) {
+        return generateToken(new HashMap<>(), userDetails);
+    }
+
+    public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+            .setHeaderParam(JwsHeader.KEY_ID, keyId)
+            .setClaims(extraClaims)
+            .setSubject(userDetails.getUsername())
+            .setIssuedAt(new Date(now))
+            .setExpiration(new Date(now + expirationMs))
+            .signWith(signingKey, SignatureAlgorithm.HS256)
+            .compact();
+    }
+
+    /**
+     * Verifies the signature and expiry in a single parse and returns the claims.
+     *
+     * @throws JwtException if the token is malformed, expired or not signed by a known key
+     */
+    public Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+}
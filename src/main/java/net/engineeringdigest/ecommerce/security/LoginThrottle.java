@@ -0,0 +1,101 @@
+package net.engineeringdigest.ecommerce.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Counts failed logins per username and per client address in fixed Redis windows, shared by
+ * every node. Once either count reaches its limit, further attempts are refused before any
+ * password hashing until the window ends. Redis errors let the attempt through.
+ */
+@Component
+public class LoginThrottle {
+    private static final Logger log = LoggerFactory.getLogger(LoginThrottle.class);
+    private static final String USER_KEY_PREFIX = "auth:login:failures:user:";
+    private static final String IP_KEY_PREFIX = "auth:login:failures:ip:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Counter userThrottled;
+    private final Counter ipThrottled;
+
+    @Value("${app.security.login.max-failures-per-user:5}")
+    private int maxFailuresPerUser;
+
+    @Value("${app.security.login.max-failures-per-ip:50}")
+    private int maxFailuresPerIp;
+
+    @Value("${app.security.login.window:PT15M}")
+    private Duration window;
+
+    public LoginThrottle(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.userThrottled = meterRegistry.counter("auth.login.throttled", "scope", "user");
+        this.ipThrottled = meterRegistry.counter("auth.login.throttled", "scope", "ip");
+    }
+
+    /**
+     * Seconds until the caller may try again, or 0 if the attempt is allowed.
+     */
+    public long retryAfterSeconds(String username, String clientIp) {
+        String userKey = USER_KEY_PREFIX + username;
+        String ipKey = IP_KEY_PREFIX + clientIp;
+        try {
+            List<String> counts = redisTemplate.opsForValue().multiGet(List.of(userKey, ipKey));
+            if (counts == null) {
+                return 0;
+            }
+            if (exceeds(counts.get(0), maxFailuresPerUser)) {
+                userThrottled.increment();
+                return remaining(userKey);
+            }
+            if (exceeds(counts.get(1), maxFailuresPerIp)) {
+                ipThrottled.increment();
+                return remaining(ipKey);
+            }
+        } catch (Exception e) {
+            log.warn("Login throttle unavailable: {}", e.getMessage());
+        }
+        return 0;
+    }
+
+    public void recordFailure(String username, String clientIp) {
+        try {
+            increment(USER_KEY_PREFIX + username);
+            increment(IP_KEY_PREFIX + clientIp);
+        } catch (Exception e) {
+            log.warn("Failed to record login failure for {}: {}", username, e.getMessage());
+        }
+    }
+
+    public void recordSuccess(String username) {
+        try {
+            redisTemplate.delete(USER_KEY_PREFIX + username);
+        } catch (Exception e) {
+            log.warn("Failed to reset login failures for {}: {}", username, e.getMessage());
+        }
+    }
+
+    private void increment(String key) {
+        Long count = redisTemplate.opsForValue().increment(key);
+        if (count != null && count == 1) {
+            redisTemplate.expire(key, window);
+        }
+    }
+
+    private boolean exceeds(String count, int limit) {
+        return count != null && Long.parseLong(count) >= limit;
+    }
+
+    private long remaining(String key) {
+        Long ttl = redisTemplate.getExpire(key);
+        return ttl == null || ttl <= 0 ? window.toSeconds() : ttl;
+    }
+}
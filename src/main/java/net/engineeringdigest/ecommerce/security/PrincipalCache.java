@@ -0,0 +1,132 @@
+package net.engineeringdigest.ecommerce.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Principals of already verified access tokens, keyed by a SHA-256 fingerprint of the token, so
+ * repeated requests with the same token skip signature verification and the user lookup. An
+ * entry never outlives its token and is dropped on every node when the user is invalidated
+ * (deleted, or their roles or credentials changed); the configured TTL bounds staleness if an
+ * invalidation message is missed.
+ */
+@Component
+public class PrincipalCache {
+    private static final Logger log = LoggerFactory.getLogger(PrincipalCache.class);
+    static final String INVALIDATION_CHANNEL = "auth:principal:invalidate";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, Entry> cache;
+    private final long ttlNanos;
+    // Bumped on every invalidation so a lookup that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public PrincipalCache(StringRedisTemplate redisTemplate,
+                          RedisMessageListenerContainer listenerContainer,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${app.security.principal-cache.ttl:PT5M}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttlNanos = ttl.toNanos();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new Expiry<String, Entry>() {
+                @Override
+                public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                    return Math.max(0, entry.expiresAt - currentTime);
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                    return Math.max(0, entry.expiresAt - currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.principal");
+
+        listenerContainer.addMessageListener(
+            (message, pattern) -> invalidateLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    public VerifiedToken get(String token) {
+        Entry entry = cache.getIfPresent(fingerprint(token));
+        return entry == null ? null : entry.token;
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches the principal of a verified token until the token expires or the TTL passes,
+     * unless an invalidation happened after {@code generation} was read.
+     */
+    public void put(String token, VerifiedToken verified, Date tokenExpiration, long generation) {
+        long now = System.nanoTime();
+        long untilTokenExpiry = TimeUnit.MILLISECONDS.toNanos(tokenExpiration.getTime() - System.currentTimeMillis());
+        long expiresAt = now + Math.min(ttlNanos, untilTokenExpiry);
+        // Only what the filter needs; the password hash is not kept
+        UserDetails principal = User.withUsername(verified.user().getUsername())
+            .password("")
+            .authorities(verified.user().getAuthorities())
+            .build();
+        if (untilTokenExpiry > 0 && this.generation.get() == generation) {
+            cache.put(fingerprint(token), new Entry(new VerifiedToken(principal, verified.sessionId()), expiresAt));
+        }
+    }
+
+    // Drops the user's cached principals on every node
+    public void invalidate(String username) {
+        invalidateLocal(username);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, username);
+        } catch (Exception e) {
+            log.error("Failed to broadcast principal invalidation for {}: {}", username, e.getMessage());
+        }
+    }
+
+    private void invalidateLocal(String username) {
+        generation.incrementAndGet();
+        cache.asMap().values().removeIf(entry -> entry.token.user().getUsername().equals(username));
+    }
+
+    private static String fingerprint(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Entry(VerifiedToken token, long expiresAt) {
+    }
+}
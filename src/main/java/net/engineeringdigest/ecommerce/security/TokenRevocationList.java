@@ -0,0 +1,76 @@
+package net.engineeringdigest.ecommerce.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked session ids, each kept until the last access token it could have issued expires.
+ * Redis holds the shared list as a sorted set scored by that expiry; every node mirrors it in
+ * memory, so {@link #isRevoked} never does network I/O. New revocations are broadcast over
+ * pub/sub and the periodic resync picks up anything a node missed.
+ */
+@Component
+public class TokenRevocationList {
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+    private static final String REVOKED_KEY = "auth:revoked";
+    static final String REVOCATION_CHANNEL = "auth:revoked";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    public TokenRevocationList(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        listenerContainer.addMessageListener(
+            (message, pattern) -> {
+                // "<expiresAtMillis> <id>"
+                String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ", 2);
+                revoked.put(parts[1], Long.parseLong(parts[0]));
+            },
+            new ChannelTopic(REVOCATION_CHANNEL));
+    }
+
+    public boolean isRevoked(String id) {
+        Long expiresAt = revoked.get(id);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public void revoke(String id, long expiresAtMillis) {
+        revoked.put(id, expiresAtMillis);
+        try {
+            redisTemplate.opsForZSet().add(REVOKED_KEY, id, expiresAtMillis);
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, expiresAtMillis + " " + id);
+        } catch (Exception e) {
+            // Still enforced on this node; other nodes learn of it once Redis is back
+            log.error("Failed to share revocation of {}: {}", id, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.security.revocation.sync-interval-ms:60000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(REVOKED_KEY, Double.NEGATIVE_INFINITY, now);
+            Set<ZSetOperations.TypedTuple<String>> current =
+                redisTemplate.opsForZSet().rangeByScoreWithScores(REVOKED_KEY, now, Double.POSITIVE_INFINITY);
+            if (current != null) {
+                current.forEach(tuple -> revoked.put(tuple.getValue(), tuple.getScore().longValue()));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to sync token revocations: {}", e.getMessage());
+        }
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+}
@@ -0,0 +1,7 @@
+package net.engineeringdigest.ecommerce.security;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+// A signature-checked access token: its user and the login session (sid claim) it belongs to
+public record VerifiedToken(UserDetails user, String sessionId) {
+}
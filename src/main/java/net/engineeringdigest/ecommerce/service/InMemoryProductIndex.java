@@ -0,0 +1,428 @@
+package net.engineeringdigest.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.engineeringdigest.ecommerce.constant.AppConstants;
+import net.engineeringdigest.ecommerce.dto.ProductChangeEvent;
+import net.engineeringdigest.ecommerce.dto.ProductSummary;
+import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.entity.RatingSummary;
+import net.engineeringdigest.ecommerce.enums.SearchOperator;
+import net.engineeringdigest.ecommerce.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * RAM-resident inverted index over active products, used for search when Elasticsearch is
+ * not available. Products are addressed by compact int doc ids; every term maps to a sorted
+ * int posting list. Name and category tokens are also indexed by their edge n-grams so that
+ * partial words match, while description tokens are indexed whole to keep memory bounded.
+ * Alongside the postings each product keeps only the fields a search result shows.
+ */
+@Service
+public class InMemoryProductIndex {
+    private static final Logger log = LoggerFactory.getLogger(InMemoryProductIndex.class);
+    private static final String LISTENER_ID = "product-memory-index";
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_LENGTH = 10;
+    private static final int MAX_TERMS_PER_PRODUCT = 256;
+    private static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(1);
+
+    private final ProductRepository productRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final List<IndexedProduct> documents = new ArrayList<>();
+    private final List<PostingList[]> documentPostings = new ArrayList<>();
+    private final Deque<Integer> freeDocIds = new ArrayDeque<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    @Value("${app.search.in-memory.enabled:true}")
+    private boolean enabled;
+
+    // The index only backs search when Elasticsearch is switched off
+    @Value("${app.search.elasticsearch.enabled:true}")
+    private boolean elasticsearchEnabled;
+
+    private volatile boolean ready;
+    // Published for the gauges, which must not touch the maps outside the lock
+    private volatile int documentCount;
+    private volatile int termCount;
+
+    public InMemoryProductIndex(ProductRepository productRepository,
+                                MongoTemplate mongoTemplate,
+                                ObjectMapper objectMapper,
+                                KafkaListenerEndpointRegistry listenerRegistry,
+                                MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.listenerRegistry = listenerRegistry;
+        meterRegistry.gauge("search.memory.documents", this, index -> index.documentCount);
+        meterRegistry.gauge("search.memory.terms", this, index -> index.termCount);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled || elasticsearchEnabled) {
+            return;
+        }
+        Thread builder = new Thread(this::load, "product-memory-index");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // One consumer group per node: every instance has to see every change. The group id is
+    // stable across restarts so the broker does not accumulate an abandoned group per boot.
+    @KafkaListener(
+        id = LISTENER_ID,
+        topics = AppConstants.PRODUCT_EVENTS_TOPIC,
+        groupId = "${app.search.in-memory.consumer-group:product-memory-index-${HOSTNAME:local}}",
+        autoStartup = "false",
+        properties = "auto.offset.reset=latest"
+    )
+    public void onProductChange(String message) {
+        try {
+            ProductChangeEvent event = objectMapper.readValue(message, ProductChangeEvent.class);
+            refresh(event.getProductId());
+        } catch (Exception e) {
+            log.error("Failed to apply product change to in-memory index: {}", e.getMessage());
+        }
+    }
+
+    public List<ProductSummary> search(String query, SearchOperator operator, int page, int size) {
+        Set<String> tokens = new LinkedHashSet<>(tokenize(query));
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                PostingList list = postings.get(token);
+                if (list != null) {
+                    lists.add(list);
+                } else if (operator == SearchOperator.AND) {
+                    return List.of();
+                }
+            }
+            if (lists.isEmpty()) {
+                return List.of();
+            }
+
+            int[] matches = operator == SearchOperator.AND ? intersect(lists) : unionByMatchCount(lists);
+            int from = page * size;
+            if (from >= matches.length) {
+                return List.of();
+            }
+            int to = Math.min(matches.length, from + size);
+            List<ProductSummary> results = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                results.add(documents.get(matches[i]).toSummary());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            try (Stream<Product> products = mongoTemplate.stream(Query.query(where("active").is(true)), Product.class)) {
+                products.forEach(this::upsert);
+            }
+
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+            if (container != null) {
+                container.start();
+            }
+
+            // Changes made while the initial scan was running were not seen by the listener yet
+            Query changed = Query.query(where("updatedAt").gte(startedAt.minus(CATCH_UP_OVERLAP)));
+            try (Stream<Product> products = mongoTemplate.stream(changed, Product.class)) {
+                products.forEach(this::apply);
+            }
+
+            ready = true;
+            log.info("In-memory product index ready with {} products and {} terms", documentCount, termCount);
+        } catch (Exception e) {
+            log.error("Failed to build in-memory product index: {}", e.getMessage());
+        }
+    }
+
+    private void refresh(String productId) {
+        productRepository.findById(productId).ifPresentOrElse(this::apply, () -> remove(productId));
+    }
+
+    private void apply(Product product) {
+        if (product.isActive()) {
+            upsert(product);
+        } else {
+            remove(product.getId());
+        }
+    }
+
+    private void upsert(Product product) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.get(product.getId());
+            if (docId != null) {
+                IndexedProduct existing = documents.get(docId);
+                if (existing.updatedAt() != null && product.getUpdatedAt() != null
+                        && product.getUpdatedAt().isBefore(existing.updatedAt())) {
+                    return;
+                }
+                for (PostingList list : documentPostings.get(docId)) {
+                    removePosting(list, docId);
+                }
+            } else {
+                docId = allocateDocId();
+                docIds.put(product.getId(), docId);
+            }
+
+            Set<String> terms = terms(product);
+            PostingList[] lists = new PostingList[terms.size()];
+            int i = 0;
+            for (String term : terms) {
+                PostingList list = postings.computeIfAbsent(term, PostingList::new);
+                list.add(docId);
+                lists[i++] = list;
+            }
+            documents.set(docId, IndexedProduct.from(product));
+            documentPostings.set(docId, lists);
+            publishCounts();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIds.remove(productId);
+            if (docId == null) {
+                return;
+            }
+            for (PostingList list : documentPostings.get(docId)) {
+                removePosting(list, docId);
+            }
+            documents.set(docId, null);
+            documentPostings.set(docId, null);
+            freeDocIds.push(docId);
+            publishCounts();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void publishCounts() {
+        documentCount = docIds.size();
+        termCount = postings.size();
+    }
+
+    private int allocateDocId() {
+        if (!freeDocIds.isEmpty()) {
+            return freeDocIds.pop();
+        }
+        documents.add(null);
+        documentPostings.add(null);
+        return documents.size() - 1;
+    }
+
+    private void removePosting(PostingList list, int docId) {
+        list.remove(docId);
+        if (list.size == 0) {
+            postings.remove(list.term);
+        }
+    }
+
+    private static int[] intersect(List<PostingList> lists) {
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        PostingList smallest = lists.get(0);
+        int[] result = Arrays.copyOf(smallest.docIds, smallest.size);
+        int length = result.length;
+        for (int l = 1; l < lists.size() && length > 0; l++) {
+            PostingList other = lists.get(l);
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < length; i++) {
+                int docId = result[i];
+                while (j < other.size && other.docIds[j] < docId) {
+                    j++;
+                }
+                if (j < other.size && other.docIds[j] == docId) {
+                    result[kept++] = docId;
+                }
+            }
+            length = kept;
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    // Orders documents by how many query terms they match, then by doc id
+    private static int[] unionByMatchCount(List<PostingList> lists) {
+        int total = 0;
+        for (PostingList list : lists) {
+            total += list.size;
+        }
+        int[] all = new int[total];
+        int offset = 0;
+        for (PostingList list : lists) {
+            System.arraycopy(list.docIds, 0, all, offset, list.size);
+            offset += list.size;
+        }
+        Arrays.sort(all);
+
+        // Pack (count, docId) into one long so a single primitive sort gives the ranking
+        long[] ranked = new long[total];
+        int distinct = 0;
+        for (int i = 0; i < total; ) {
+            int docId = all[i];
+            int count = 0;
+            while (i < total && all[i] == docId) {
+                count++;
+                i++;
+            }
+            ranked[distinct++] = ((long) (lists.size() - count) << 32) | docId;
+        }
+        Arrays.sort(ranked, 0, distinct);
+
+        int[] result = new int[distinct];
+        for (int i = 0; i < distinct; i++) {
+            result[i] = (int) ranked[i];
+        }
+        return result;
+    }
+
+    private static Set<String> terms(Product product) {
+        Set<String> terms = new LinkedHashSet<>();
+        addWithPrefixes(terms, product.getName());
+        addWithPrefixes(terms, product.getCategory());
+        for (String token : tokenize(product.getDescription())) {
+            if (terms.size() >= MAX_TERMS_PER_PRODUCT) {
+                break;
+            }
+            terms.add(token);
+        }
+        return terms;
+    }
+
+    private static void addWithPrefixes(Set<String> terms, String text) {
+        for (String token : tokenize(text)) {
+            for (int length = MIN_PREFIX_LENGTH; length < Math.min(token.length(), MAX_PREFIX_LENGTH + 1); length++) {
+                if (terms.size() >= MAX_TERMS_PER_PRODUCT) {
+                    return;
+                }
+                terms.add(token.substring(0, length));
+            }
+            if (terms.size() >= MAX_TERMS_PER_PRODUCT) {
+                return;
+            }
+            terms.add(token);
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    // The fields of a search result, plus updatedAt to drop out-of-order changes
+    private record IndexedProduct(String id, String name, BigDecimal price, String imageUrl,
+                                  double averageRating, long ratingCount, LocalDateTime updatedAt) {
+        private static IndexedProduct from(Product product) {
+            RatingSummary rating = product.getRating();
+            return new IndexedProduct(product.getId(), product.getName(), product.getPrice(), product.getImageUrl(),
+                rating == null ? 0 : rating.getAverage(), rating == null ? 0 : rating.getCount(),
+                product.getUpdatedAt());
+        }
+
+        private ProductSummary toSummary() {
+            return new ProductSummary(id, name, price, imageUrl, averageRating, ratingCount);
+        }
+    }
+
+    private static final class PostingList {
+        private final String term;
+        private int[] docIds = new int[4];
+        private int size;
+
+        private PostingList(String term) {
+            this.term = term;
+        }
+
+        private void add(int docId) {
+            int position = Arrays.binarySearch(docIds, 0, size, docId);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size + (size >> 1) + 1);
+            }
+            System.arraycopy(docIds, position, docIds, position + 1, size - position);
+            docIds[position] = docId;
+            size++;
+        }
+
+        private void remove(int docId) {
+            int position = Arrays.binarySearch(docIds, 0, size, docId);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(docIds, position + 1, docIds, position, size - position - 1);
+            size--;
+        }
+    }
+}
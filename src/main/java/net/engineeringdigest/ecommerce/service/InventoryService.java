@@ -0,0 +1,477 @@
+package net.engineeringdigest.ecommerce.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.engineeringdigest.ecommerce.dto.InventoryReservation;
+import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.enums.ProductChangeType;
+import net.engineeringdigest.ecommerce.exception.ResourceNotFoundException;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Reservation-based inventory for high-contention products. Available stock is held in Redis
+ * and changed only by Lua scripts, so reserve, commit and release are atomic without touching
+ * Mongo. Committed quantities accumulate as per-product deltas that are flushed to Mongo in
+ * one unordered bulk write per interval; unconfirmed reservations are returned to stock when
+ * they expire.
+ *
+ * Each drained batch gets an id that is stored with it in Redis and recorded on every product
+ * the batch updates, so retrying a batch after a partial or unacknowledged write never applies
+ * a delta twice.
+ *
+ * While a product is tracked, every stock write has to go through {@link #adjustIfTracked} or
+ * {@link #setIfTracked} so it is checked against the same counter as reservations; a write
+ * straight to Mongo would let Redis keep selling stock that is already gone. As a last line of
+ * defence the flush never takes Mongo stock below zero and records any shortfall instead.
+ *
+ * Per product, Redis available stock always equals Mongo stock plus unflushed deltas minus
+ * open reservations. The reconciliation job re-checks that against Mongo and repairs the Redis
+ * counter, which also picks up stock changes made directly in Mongo.
+ */
+@Service
+public class InventoryService {
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    private static final String STOCK_KEY_PREFIX = "inventory:stock:";
+    private static final String RESERVATION_KEY_PREFIX = "inventory:reservation:";
+    private static final String EXPIRY_INDEX_KEY = "inventory:reservations";
+    private static final String RESERVED_KEY = "inventory:reserved";
+    private static final String DELTAS_KEY = "inventory:deltas";
+    private static final String FLUSHING_DELTAS_KEY = "inventory:deltas:flushing";
+    private static final String FLUSH_ID_KEY = "inventory:deltas:flushing:id";
+    private static final String FLUSH_ID_FIELD = "inventoryFlushId";
+    private static final String SHORTFALL_FIELD = "inventoryShortfall";
+    private static final String TRACKED_KEY = "inventory:tracked";
+    private static final String LOCK_KEY = "inventory:lock";
+    private static final long NOT_LOADED = -2;
+    private static final long REJECTED = -1;
+
+    private static final RedisScript<Long> RESERVE = script("redis/inventory-reserve.lua", Long.class);
+    private static final RedisScript<Long> COMMIT = script("redis/inventory-commit.lua", Long.class);
+    private static final RedisScript<Long> RELEASE = script("redis/inventory-release.lua", Long.class);
+    private static final RedisScript<Long> SYNC = script("redis/inventory-sync.lua", Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DRAIN = script("redis/inventory-drain.lua", List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADJUST = script("redis/inventory-adjust.lua", List.class);
+    private static final RedisScript<Long> FLUSH_COMPLETE = script("redis/inventory-flush-complete.lua", Long.class);
+    private static final RedisScript<Long> UNLOCK = script("redis/unlock.lua", Long.class);
+    private static final RedisScript<Long> EXTEND_LOCK = script("redis/lock-extend.lua", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final ProductEventPublisher productEventPublisher;
+    private final Counter reserved;
+    private final Counter rejected;
+    private final Counter committed;
+    private final Counter released;
+    private final Counter expired;
+    private final Counter flushedProducts;
+    private final Counter drift;
+    private final Counter shortfall;
+
+    @Value("${app.inventory.reservation-ttl:PT10M}")
+    private Duration reservationTtl;
+
+    @Value("${app.inventory.lock-ttl:PT30S}")
+    private Duration lockTtl;
+
+    @Value("${app.inventory.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    public InventoryService(StringRedisTemplate redisTemplate,
+                            MongoTemplate mongoTemplate,
+                            ProductCache productCache,
+                            ProductEventPublisher productEventPublisher,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.productEventPublisher = productEventPublisher;
+        this.reserved = meterRegistry.counter("inventory.reservations", "result", "reserved");
+        this.rejected = meterRegistry.counter("inventory.reservations", "result", "insufficient");
+        this.committed = meterRegistry.counter("inventory.reservations", "result", "committed");
+        this.released = meterRegistry.counter("inventory.reservations", "result", "released");
+        this.expired = meterRegistry.counter("inventory.reservations", "result", "expired");
+        this.flushedProducts = meterRegistry.counter("inventory.flush.products");
+        this.drift = meterRegistry.counter("inventory.reconcile.drift");
+        this.shortfall = meterRegistry.counter("inventory.flush.shortfall");
+    }
+
+    public InventoryReservation reserve(String productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        // The product id is part of the reservation id so commit and release can address its keys
+        String reservationId = productId + ":" + UUID.randomUUID();
+        long expiresAt = System.currentTimeMillis() + reservationTtl.toMillis();
+        Supplier<Long> attempt = () -> redisTemplate.execute(RESERVE,
+            List.of(stockKey(productId), RESERVATION_KEY_PREFIX + reservationId, EXPIRY_INDEX_KEY, RESERVED_KEY),
+            productId, reservationId, String.valueOf(quantity), String.valueOf(expiresAt));
+
+        Long remaining = attempt.get();
+        if (remaining != null && remaining == NOT_LOADED) {
+            load(productId);
+            remaining = attempt.get();
+        }
+        if (remaining == null || remaining < 0) {
+            rejected.increment();
+            log.warn("Insufficient stock to reserve {} of product {}", quantity, productId);
+            throw new IllegalArgumentException("Insufficient stock");
+        }
+
+        reserved.increment();
+        log.debug("Reserved {} of product {} as {}", quantity, productId, reservationId);
+        return InventoryReservation.builder()
+            .reservationId(reservationId)
+            .productId(productId)
+            .quantity(quantity)
+            .remainingStock(remaining)
+            .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()))
+            .build();
+    }
+
+    public void commit(String reservationId) {
+        String productId = productIdOf(reservationId);
+        Long quantity = redisTemplate.execute(COMMIT,
+            List.of(RESERVATION_KEY_PREFIX + reservationId, EXPIRY_INDEX_KEY, RESERVED_KEY, DELTAS_KEY),
+            productId, reservationId);
+        if (quantity == null || quantity == REJECTED) {
+            throw new ResourceNotFoundException("Reservation not found or expired");
+        }
+        committed.increment();
+        log.debug("Committed reservation {} for {} of product {}", reservationId, quantity, productId);
+    }
+
+    public void release(String reservationId) {
+        if (!releaseReservation(reservationId)) {
+            throw new ResourceNotFoundException("Reservation not found or expired");
+        }
+        released.increment();
+    }
+
+    /**
+     * Adds {@code delta} to the stock of a tracked product. Returns the new stock on hand, or
+     * {@code null} if the product is not tracked and the caller should write Mongo itself.
+     *
+     * @throws IllegalArgumentException if available stock would go below zero
+     */
+    public Long adjustIfTracked(String productId, int delta) {
+        return applyIfTracked(productId, "inc", delta);
+    }
+
+    /**
+     * Sets the stock on hand of a tracked product, reservations included. Returns the new stock
+     * on hand, or {@code null} if the product is not tracked and the caller should write Mongo.
+     *
+     * @throws IllegalArgumentException if the quantity is below the currently reserved units
+     */
+    public Long setIfTracked(String productId, int quantity) {
+        return applyIfTracked(productId, "set", quantity);
+    }
+
+    public boolean isTracked(String productId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(TRACKED_KEY, productId));
+    }
+
+    // The ids among productIds whose stock is served from Redis, in one round trip
+    public Set<String> trackedAmong(Collection<String> productIds) {
+        if (productIds.isEmpty()) {
+            return Set.of();
+        }
+        Map<Object, Boolean> members = redisTemplate.opsForSet().isMember(TRACKED_KEY, productIds.toArray());
+        Set<String> tracked = new HashSet<>();
+        if (members != null) {
+            members.forEach((id, member) -> {
+                if (Boolean.TRUE.equals(member)) {
+                    tracked.add((String) id);
+                }
+            });
+        }
+        return tracked;
+    }
+
+    private Long applyIfTracked(String productId, String mode, int amount) {
+        List<?> result = redisTemplate.execute(ADJUST,
+            List.of(stockKey(productId), DELTAS_KEY, RESERVED_KEY, TRACKED_KEY),
+            productId, mode, String.valueOf(amount));
+        if (result == null || result.size() < 3) {
+            throw new IllegalStateException("Inventory adjustment returned no result");
+        }
+        long status = ((Number) result.get(0)).longValue();
+        long available = ((Number) result.get(1)).longValue();
+        long reservedUnits = ((Number) result.get(2)).longValue();
+        if (status == 1) {
+            return null;
+        }
+        if (status == 2) {
+            log.warn("Rejected stock {} of {} for product {}: {} available, {} reserved",
+                mode, amount, productId, available, reservedUnits);
+            throw new IllegalArgumentException("Insufficient stock");
+        }
+        log.debug("Stock {} of {} for product {} applied in Redis", mode, amount, productId);
+        return available + reservedUnits;
+    }
+
+    public long getAvailable(String productId) {
+        String available = redisTemplate.opsForValue().get(stockKey(productId));
+        if (available == null) {
+            load(productId);
+            available = redisTemplate.opsForValue().get(stockKey(productId));
+        }
+        return available == null ? 0 : Long.parseLong(available);
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.sweep-interval-ms:5000}")
+    public void releaseExpired() {
+        Set<String> due = redisTemplate.opsForZSet()
+            .rangeByScore(EXPIRY_INDEX_KEY, 0, System.currentTimeMillis(), 0, sweepBatchSize);
+        if (due == null || due.isEmpty()) {
+            return;
+        }
+        int count = 0;
+        for (String reservationId : due) {
+            // Loses quietly to a concurrent commit or release of the same reservation
+            if (releaseReservation(reservationId)) {
+                count++;
+            }
+        }
+        expired.increment(count);
+        if (count > 0) {
+            log.info("Returned {} expired reservations to stock", count);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.flush-interval-ms:1000}")
+    public void flush() {
+        withLock(this::flushDeltas);
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        withLock(this::reconcileTracked);
+    }
+
+    private void flushDeltas(BooleanSupplier lockHeld) {
+        List<?> drained = redisTemplate.execute(DRAIN, List.of(DELTAS_KEY, FLUSHING_DELTAS_KEY, FLUSH_ID_KEY),
+            UUID.randomUUID().toString());
+        if (drained == null || drained.isEmpty()) {
+            return;
+        }
+
+        String flushId = (String) drained.get(0);
+        Map<String, Long> deltas = new HashMap<>();
+        for (int i = 1; i + 1 < drained.size(); i += 2) {
+            long delta = Long.parseLong((String) drained.get(i + 1));
+            if (delta != 0) {
+                deltas.put((String) drained.get(i), delta);
+            }
+        }
+
+        if (!deltas.isEmpty()) {
+            if (!lockHeld.getAsBoolean()) {
+                log.warn("Lost the inventory lock before writing stock batch {}", flushId);
+                return;
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+            Date now = new Date();
+            // Products that already took this batch on an earlier attempt no longer match
+            deltas.forEach((productId, delta) -> bulk.updateOne(
+                Query.query(where("_id").is(productId).and(FLUSH_ID_FIELD).ne(flushId)),
+                applyDelta(delta, flushId, now)));
+            BulkWriteResult result = bulk.execute();
+            log.debug("Flushed stock batch {} for {} products ({} modified)",
+                flushId, deltas.size(), result.getModifiedCount());
+            recordShortfalls(deltas, flushId);
+        }
+        // Only dropped once Mongo has the batch; a failed flush is retried on the next run
+        Long completed = redisTemplate.execute(FLUSH_COMPLETE, List.of(FLUSHING_DELTAS_KEY, FLUSH_ID_KEY), flushId);
+        if (completed == null || completed == 0) {
+            log.warn("Stock batch {} was already completed by another flush", flushId);
+            return;
+        }
+
+        flushedProducts.increment(deltas.size());
+        for (String productId : deltas.keySet()) {
+            productCache.evict(productId);
+            productEventPublisher.publish(productId, ProductChangeType.STOCK_UPDATED);
+        }
+    }
+
+    // Stock is capped at zero; whatever the delta could not take is kept on the product as this
+    // flush's shortfall. Field references in a single $set stage all see the values before it.
+    private static AggregationUpdate applyDelta(long delta, String flushId, Date now) {
+        Document newStock = new Document("$add", List.of("$stockQuantity", delta));
+        Document set = new Document("stockQuantity", new Document("$max", List.of(0, newStock)))
+            .append(SHORTFALL_FIELD, new Document("$max", List.of(0, new Document("$subtract", List.of(0, newStock)))))
+            .append("updatedAt", now)
+            .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0)), 1)))
+            .append(FLUSH_ID_FIELD, flushId);
+        return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+    }
+
+    private void recordShortfalls(Map<String, Long> deltas, String flushId) {
+        List<String> decreased = deltas.entrySet().stream()
+            .filter(entry -> entry.getValue() < 0)
+            .map(Map.Entry::getKey)
+            .toList();
+        if (decreased.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(where("_id").in(decreased).and(FLUSH_ID_FIELD).is(flushId).and(SHORTFALL_FIELD).gt(0));
+        query.fields().include(SHORTFALL_FIELD);
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Product.class))) {
+            long missing = ((Number) document.get(SHORTFALL_FIELD)).longValue();
+            shortfall.increment(missing);
+            log.error("Stock for product {} was oversold by {}; stock held at zero", document.get("_id"), missing);
+        }
+    }
+
+    private void reconcileTracked(BooleanSupplier lockHeld) {
+        // Mongo may already hold part of a batch that failed to flush, which the sync would count twice
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(FLUSHING_DELTAS_KEY))) {
+            log.info("Skipping inventory reconciliation while a stock batch is waiting to be flushed");
+            return;
+        }
+        Set<String> tracked = redisTemplate.opsForSet().members(TRACKED_KEY);
+        if (tracked == null || tracked.isEmpty()) {
+            return;
+        }
+        List<String> productIds = new ArrayList<>(tracked);
+        Query query = Query.query(where("_id").in(productIds).and("active").is(true));
+        query.fields().include("stockQuantity");
+        Map<String, Long> stock = new HashMap<>();
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Product.class))) {
+            stock.put(document.get("_id").toString(), ((Number) document.getOrDefault("stockQuantity", 0)).longValue());
+        }
+
+        int repaired = 0;
+        for (String productId : productIds) {
+            if (!lockHeld.getAsBoolean()) {
+                log.warn("Lost the inventory lock after reconciling {} products", repaired);
+                return;
+            }
+            Long mongoStock = stock.get(productId);
+            if (mongoStock == null) {
+                // Deleted or deactivated: stop serving reservations from Redis
+                redisTemplate.delete(stockKey(productId));
+                redisTemplate.opsForSet().remove(TRACKED_KEY, productId);
+                continue;
+            }
+            Long difference = sync(productId, mongoStock, false);
+            if (difference != null && difference != 0) {
+                repaired++;
+                drift.increment(Math.abs(difference));
+                log.warn("Repaired inventory drift of {} for product {}", difference, productId);
+            }
+        }
+        log.debug("Reconciled {} tracked products, {} repaired", productIds.size(), repaired);
+    }
+
+    private void load(String productId) {
+        Product product = mongoTemplate.findById(productId, Product.class);
+        if (product == null || !product.isActive()) {
+            throw new ResourceNotFoundException("Product not found or inactive");
+        }
+        sync(productId, product.getStockQuantity(), true);
+    }
+
+    private Long sync(String productId, long mongoStock, boolean onlyIfAbsent) {
+        return redisTemplate.execute(SYNC,
+            List.of(stockKey(productId), DELTAS_KEY, FLUSHING_DELTAS_KEY, RESERVED_KEY, TRACKED_KEY),
+            productId, String.valueOf(mongoStock), onlyIfAbsent ? "1" : "0");
+    }
+
+    private boolean releaseReservation(String reservationId) {
+        String productId = productIdOf(reservationId);
+        Long quantity = redisTemplate.execute(RELEASE,
+            List.of(stockKey(productId), RESERVATION_KEY_PREFIX + reservationId, EXPIRY_INDEX_KEY, RESERVED_KEY),
+            productId, reservationId);
+        return quantity != null && quantity != REJECTED;
+    }
+
+    // Flush and reconciliation must not interleave, on this node or any other. The task is handed
+    // a check that extends the lock and reports whether it is still held.
+    private void withLock(Consumer<BooleanSupplier> task) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, lockTtl);
+        if (!Boolean.TRUE.equals(acquired)) {
+            return;
+        }
+        long renewEveryNanos = lockTtl.toNanos() / 3;
+        long[] renewedAt = {System.nanoTime()};
+        BooleanSupplier lockHeld = () -> {
+            long now = System.nanoTime();
+            if (now - renewedAt[0] < renewEveryNanos) {
+                return true;
+            }
+            Long extended = redisTemplate.execute(EXTEND_LOCK, List.of(LOCK_KEY), token,
+                String.valueOf(lockTtl.toMillis()));
+            boolean held = extended != null && extended == 1;
+            if (held) {
+                renewedAt[0] = now;
+            }
+            return held;
+        };
+        try {
+            task.accept(lockHeld);
+        } catch (Exception e) {
+            log.error("Inventory maintenance failed: {}", e.getMessage(), e);
+        } finally {
+            redisTemplate.execute(UNLOCK, List.of(LOCK_KEY), token);
+        }
+    }
+
+    private static String stockKey(String productId) {
+        return STOCK_KEY_PREFIX + productId;
+    }
+
+    private static String productIdOf(String reservationId) {
+        int separator = reservationId.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new ResourceNotFoundException("Reservation not found or expired");
+        }
+        return reservationId.substring(0, separator);
+    }
+
+    private static <T> RedisScript<T> script(String location, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(location));
+        script.setResultType(resultType);
+        return script;
+    }
+}
@@ -0,0 +1,503 @@
+package net.engineeringdigest.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import net.engineeringdigest.ecommerce.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Two-tier product cache: a bounded in-process Caffeine cache (W-TinyLFU eviction, weighed
+ * by approximate entry size) in front of the shared Redis cache. Evictions are broadcast over
+ * Redis pub/sub so every node drops its local copy; the short local TTL bounds staleness if a
+ * message is missed, e.g. while the subscription reconnects.
+ *
+ * Misses are single-flight per key: concurrent callers wait on the load already in progress.
+ * Hot entries are refreshed from the source shortly before they expire, with a probability
+ * that rises as expiry approaches (XFetch), which also keeps the Redis copy from expiring.
+ *
+ * Missing or inactive products are cached as negative entries (a {@code null} product) with
+ * a shorter TTL, locally and as a marker key in Redis, so repeated lookups of unknown ids do
+ * not reach the database. {@link #evict} clears both kinds of entry.
+ *
+ * Every eviction also bumps a per-product generation in Redis. A load notes the generation
+ * before it reads the source and only writes its result back while the generation is
+ * unchanged, so a load that overlaps an update on another node cannot re-cache the old value.
+ *
+ * Cached products are shared between callers and must not be modified.
+ */
+@Service
+public class ProductCache {
+    private static final Logger log = LoggerFactory.getLogger(ProductCache.class);
+    private static final String KEY_PREFIX = "product:";
+    private static final String MISSING_KEY_PREFIX = "product:missing:";
+    private static final String GENERATION_KEY_PREFIX = "product:generation:";
+    private static final RedisScript<Long> FILL = script("redis/product-cache-fill.lua");
+    private static final RedisScript<Long> EVICT = script("redis/product-cache-evict.lua");
+    static final String INVALIDATION_CHANNEL = "cache:product:invalidate";
+
+    private final RedisService redisService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entry> local;
+    private final ConcurrentHashMap<String, CompletableFuture<Product>> inFlight = new ConcurrentHashMap<>();
+    private final long localTtlNanos;
+    private final Duration remoteTtl;
+    private final Duration negativeTtl;
+    private final double earlyRefreshBeta;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter localNegativeHits;
+    private final Counter remoteNegativeHits;
+    private final Counter coalescedLoads;
+    private final Counter earlyRefreshes;
+
+    public ProductCache(RedisService redisService,
+                        StringRedisTemplate stringRedisTemplate,
+                        ObjectMapper objectMapper,
+                        RedisMessageListenerContainer listenerContainer,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.cache.product.local.max-weight-bytes:67108864}") long maxWeightBytes,
+                        @Value("${app.cache.product.local.ttl:PT30S}") Duration localTtl,
+                        @Value("${app.cache.product.remote-ttl:PT1H}") Duration remoteTtl,
+                        @Value("${app.cache.product.early-refresh-beta:1.0}") double earlyRefreshBeta,
+                        @Value("${app.cache.product.negative-ttl:PT10S}") Duration negativeTtl) {
+        this.redisService = redisService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.localTtlNanos = localTtl.toNanos();
+        this.remoteTtl = remoteTtl;
+        this.negativeTtl = negativeTtl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.local = Caffeine.newBuilder()
+            .maximumWeight(maxWeightBytes)
+            .weigher((String id, Entry entry) -> estimateSize(entry.product))
+            .expireAfter(new Expiry<String, Entry>() {
+                @Override
+                public long expireAfterCreate(String id, Entry entry, long currentTime) {
+                    return Math.max(0, entry.expiresAt - currentTime);
+                }
+
+                @Override
+                public long expireAfterUpdate(String id, Entry entry, long currentTime, long currentDuration) {
+                    return Math.max(0, entry.expiresAt - currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String id, Entry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "product.local");
+        this.remoteHits = Counter.builder("cache.gets")
+            .tag("cache", "product.redis").tag("result", "hit")
+            .register(meterRegistry);
+        this.remoteMisses = Counter.builder("cache.gets")
+            .tag("cache", "product.redis").tag("result", "miss")
+            .register(meterRegistry);
+        this.localNegativeHits = Counter.builder("cache.gets.negative")
+            .tag("cache", "product.local")
+            .register(meterRegistry);
+        this.remoteNegativeHits = Counter.builder("cache.gets.negative")
+            .tag("cache", "product.redis")
+            .register(meterRegistry);
+        this.coalescedLoads = Counter.builder("cache.loads.coalesced")
+            .tag("cache", "product")
+            .register(meterRegistry);
+        this.earlyRefreshes = Counter.builder("cache.refreshes.early")
+            .tag("cache", "product")
+            .register(meterRegistry);
+
+        listenerContainer.addMessageListener(
+            (message, pattern) -> {
+                // A message carries one id, or several separated by newlines for bulk evictions
+                for (String id : new String(message.getBody(), StandardCharsets.UTF_8).split("\n")) {
+                    invalidateLocal(id);
+                }
+            },
+            new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * Returns the cached product, loading it through Redis and then {@code loader} on a miss.
+     * A {@code null} result (from the loader or a cached negative entry) means the product is
+     * missing or inactive. Exceptions thrown by the loader propagate to every caller waiting
+     * on that load.
+     */
+    public Product get(String id, Function<String, Product> loader) {
+        Entry entry = local.getIfPresent(id);
+        if (entry != null) {
+            if (entry.product == null) {
+                localNegativeHits.increment();
+                return null;
+            }
+            if (earlyRefreshBeta > 0 && entry.shouldRefresh(earlyRefreshBeta)) {
+                return refresh(id, entry, loader);
+            }
+            return entry.product;
+        }
+
+        CompletableFuture<Product> pending = new CompletableFuture<>();
+        CompletableFuture<Product> existing = inFlight.putIfAbsent(id, pending);
+        if (existing != null) {
+            coalescedLoads.increment();
+            return await(existing);
+        }
+        return load(id, pending, loader, false);
+    }
+
+    /**
+     * Batch variant of {@link #get}: local hits are served directly, the rest are read from
+     * Redis in one MGET, only the remaining misses go to {@code loader} in a single call, and
+     * the results are written back to Redis in one pipeline. The returned map holds found
+     * products only; ids already being loaded by another caller are awaited, not reloaded.
+     */
+    public Map<String, Product> getAll(Collection<String> ids,
+                                       Function<Collection<String>, Map<String, Product>> loader) {
+        Map<String, Product> result = new HashMap<>();
+        Map<String, CompletableFuture<Product>> owned = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Product>> joined = new HashMap<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            Entry entry = local.getIfPresent(id);
+            if (entry != null) {
+                if (entry.product != null) {
+                    result.put(id, entry.product);
+                } else {
+                    localNegativeHits.increment();
+                }
+                continue;
+            }
+            CompletableFuture<Product> pending = new CompletableFuture<>();
+            CompletableFuture<Product> existing = inFlight.putIfAbsent(id, pending);
+            if (existing == null) {
+                owned.put(id, pending);
+            } else {
+                coalescedLoads.increment();
+                joined.put(id, existing);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            result.putAll(loadAll(owned, loader));
+        }
+        joined.forEach((id, pending) -> {
+            Product product = await(pending);
+            if (product != null) {
+                result.put(id, product);
+            }
+        });
+        return result;
+    }
+
+    public void evict(String id) {
+        invalidateLocal(id);
+        evictRemote(List.of(id));
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, id);
+        } catch (Exception e) {
+            log.error("Failed to broadcast cache invalidation for product {}: {}", id, e.getMessage());
+        }
+    }
+
+    // Evicts many products with one multi-key DEL and a single broadcast message
+    public void evictAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (String id : ids) {
+            invalidateLocal(id);
+        }
+        evictRemote(ids);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.join("\n", ids));
+        } catch (Exception e) {
+            log.error("Failed to broadcast cache invalidation for {} products: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private Product refresh(String id, Entry entry, Function<String, Product> loader) {
+        CompletableFuture<Product> pending = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(id, pending) != null) {
+            // Another caller is already loading this key; keep serving the current value
+            return entry.product;
+        }
+        try {
+            Product product = load(id, pending, loader, true);
+            earlyRefreshes.increment();
+            return product;
+        } catch (RuntimeException e) {
+            log.warn("Early refresh of product {} failed: {}", id, e.getMessage());
+            return entry.product;
+        }
+    }
+
+    private Product load(String id, CompletableFuture<Product> pending, Function<String, Product> loader,
+                         boolean skipRemote) {
+        long started = System.nanoTime();
+        try {
+            Product product = null;
+            boolean fromSource = true;
+            if (!skipRemote) {
+                List<Object> cached = redisService.multiGet(List.of(KEY_PREFIX + id, MISSING_KEY_PREFIX + id));
+                Product remote = toProduct(cached.get(0));
+                if (remote != null) {
+                    product = remote;
+                    fromSource = false;
+                    remoteHits.increment();
+                } else if (cached.get(1) != null) {
+                    fromSource = false;
+                    remoteNegativeHits.increment();
+                } else {
+                    remoteMisses.increment();
+                }
+            }
+            if (fromSource) {
+                Map<String, String> generations = generations(List.of(id));
+                product = loader.apply(id);
+                // An eviction on this node while loading removes the in-flight marker; the
+                // result is then only returned to the waiting callers and never cached
+                if (inFlight.get(id) == pending) {
+                    Map<String, Product> loaded = new HashMap<>();
+                    loaded.put(id, product);
+                    fill(loaded, generations);
+                }
+            }
+            complete(id, pending, product, started);
+            return product;
+        } catch (RuntimeException e) {
+            inFlight.remove(id, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Map<String, Product> loadAll(Map<String, CompletableFuture<Product>> owned,
+                                         Function<Collection<String>, Map<String, Product>> loader) {
+        long started = System.nanoTime();
+        List<String> ids = new ArrayList<>(owned.keySet());
+        try {
+            List<String> keys = new ArrayList<>(ids.size() * 2);
+            ids.forEach(id -> keys.add(KEY_PREFIX + id));
+            ids.forEach(id -> keys.add(MISSING_KEY_PREFIX + id));
+            List<Object> cached = redisService.multiGet(keys);
+
+            Map<String, Product> loaded = new HashMap<>();
+            List<String> sourceIds = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                Product remote = toProduct(cached.get(i));
+                if (remote != null) {
+                    loaded.put(ids.get(i), remote);
+                    remoteHits.increment();
+                } else if (cached.get(ids.size() + i) != null) {
+                    loaded.put(ids.get(i), null);
+                    remoteNegativeHits.increment();
+                } else {
+                    sourceIds.add(ids.get(i));
+                    remoteMisses.increment();
+                }
+            }
+
+            if (!sourceIds.isEmpty()) {
+                Map<String, String> generations = generations(sourceIds);
+                Map<String, Product> fromSource = loader.apply(sourceIds);
+                Map<String, Product> fills = new HashMap<>();
+                for (String id : sourceIds) {
+                    Product product = fromSource.get(id);
+                    loaded.put(id, product);
+                    if (inFlight.get(id) == owned.get(id)) {
+                        fills.put(id, product);
+                    }
+                }
+                fill(fills, generations);
+            }
+
+            Map<String, Product> result = new HashMap<>();
+            owned.forEach((id, pending) -> {
+                Product product = loaded.get(id);
+                complete(id, pending, product, started);
+                if (product != null) {
+                    result.put(id, product);
+                }
+            });
+            return result;
+        } catch (RuntimeException e) {
+            owned.forEach((id, pending) -> {
+                inFlight.remove(id, pending);
+                pending.completeExceptionally(e);
+            });
+            throw e;
+        }
+    }
+
+    // The current generation of each product, or null if Redis cannot be read, in which case
+    // nothing is written back
+    private Map<String, String> generations(List<String> ids) {
+        try {
+            List<String> keys = ids.stream().map(id -> GENERATION_KEY_PREFIX + id).toList();
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                return null;
+            }
+            Map<String, String> generations = new HashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                generations.put(ids.get(i), values.get(i) != null ? values.get(i) : "");
+            }
+            return generations;
+        } catch (Exception e) {
+            log.error("Failed to read cache generations for {} products: {}", ids.size(), e.getMessage());
+            return null;
+        }
+    }
+
+    // Writes loaded products, and negative markers for missing ones, in one script call that
+    // skips every product evicted since its generation was read
+    private void fill(Map<String, Product> loaded, Map<String, String> generations) {
+        if (loaded.isEmpty() || generations == null) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(loaded.size() * 2);
+        List<byte[]> args = new ArrayList<>(loaded.size() * 3);
+        loaded.forEach((id, product) -> {
+            keys.add((product != null ? KEY_PREFIX : MISSING_KEY_PREFIX) + id);
+            keys.add(GENERATION_KEY_PREFIX + id);
+            long ttl = (product != null ? remoteTtl : negativeTtl).toMillis();
+            args.add(generations.get(id).getBytes(StandardCharsets.UTF_8));
+            args.add(String.valueOf(ttl).getBytes(StandardCharsets.UTF_8));
+            args.add(redisService.encode(product != null ? product : Boolean.TRUE));
+        });
+        Long written = redisService.execute(FILL, keys, args);
+        if (written != null && written < loaded.size()) {
+            log.debug("Skipped caching {} products evicted while loading", loaded.size() - written);
+        }
+    }
+
+    private void evictRemote(Collection<String> ids) {
+        List<String> keys = new ArrayList<>(ids.size() * 3);
+        for (String id : ids) {
+            keys.add(KEY_PREFIX + id);
+            keys.add(MISSING_KEY_PREFIX + id);
+            keys.add(GENERATION_KEY_PREFIX + id);
+        }
+        try {
+            // A generation is kept as long as a cached value, far longer than any load
+            stringRedisTemplate.execute(EVICT, keys, String.valueOf(remoteTtl.toMillis()));
+        } catch (Exception e) {
+            log.error("Failed to evict {} products from Redis: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    // Caches the loaded value locally unless the key was evicted while loading, then wakes the waiters
+    private void complete(String id, CompletableFuture<Product> pending, Product product, long started) {
+        long ttlNanos = product != null ? localTtlNanos : negativeTtl.toNanos();
+        Entry entry = new Entry(product, System.nanoTime() - started, started + ttlNanos);
+        inFlight.computeIfPresent(id, (key, current) -> {
+            if (current != pending) {
+                return current;
+            }
+            local.put(key, entry);
+            return null;
+        });
+        pending.complete(product);
+    }
+
+    // Values written without type information come back from Redis as maps
+    private Product toProduct(Object cached) {
+        if (cached instanceof Product product) {
+            return product;
+        }
+        if (cached instanceof Map<?, ?> map) {
+            try {
+                return objectMapper.convertValue(map, Product.class);
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring unreadable cached product: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void invalidateLocal(String id) {
+        inFlight.remove(id);
+        local.invalidate(id);
+    }
+
+    private static Product await(CompletableFuture<Product> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Rough heap footprint: object headers, fixed fields and the rating summary plus two bytes per char
+    private static int estimateSize(Product product) {
+        if (product == null) {
+            return 64;
+        }
+        long size = 512 + chars(product.getName()) + chars(product.getDescription())
+            + chars(product.getCategory()) + chars(product.getImageUrl());
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : 2L * value.length();
+    }
+
+    private static RedisScript<Long> script(String location) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(location));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    private static final class Entry {
+        private final Product product;
+        private final long loadNanos;
+        private final long expiresAt;
+
+        private Entry(Product product, long loadNanos, long expiresAt) {
+            this.product = product;
+            this.loadNanos = loadNanos;
+            this.expiresAt = expiresAt;
+        }
+
+        // XFetch: refresh once now - loadTime * beta * ln(rand) passes the expiry time
+        private boolean shouldRefresh(double beta) {
+            double gap = -loadNanos * beta * Math.log(ThreadLocalRandom.current().nextDouble());
+            return System.nanoTime() + gap >= expiresAt;
+        }
+    }
+}
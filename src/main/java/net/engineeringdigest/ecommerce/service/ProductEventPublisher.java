@@ -0,0 +1,32 @@
+package net.engineeringdigest.ecommerce.service;
+
+import net.engineeringdigest.ecommerce.constant.AppConstants;
+import net.engineeringdigest.ecommerce.dto.ProductChangeEvent;
+import net.engineeringdigest.ecommerce.enums.ProductChangeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ProductEventPublisher {
+    private static final Logger log = LoggerFactory.getLogger(ProductEventPublisher.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public ProductEventPublisher(@Qualifier("jsonKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public void publish(String productId, ProductChangeType type) {
+        ProductChangeEvent event = new ProductChangeEvent(productId, type, System.currentTimeMillis());
+        // Keyed by product id so all changes to one product land on the same partition in order
+        kafkaTemplate.send(AppConstants.PRODUCT_EVENTS_TOPIC, productId, event)
+            .whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.error("Failed to publish {} event for product {}: {}", type, productId, ex.getMessage());
+                }
+            });
+    }
+}
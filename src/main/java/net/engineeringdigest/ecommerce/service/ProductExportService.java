@@ -0,0 +1,73 @@
+package net.engineeringdigest.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import net.engineeringdigest.ecommerce.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Writes the catalog as newline-delimited JSON straight from a Mongo cursor, so memory use
+ * stays constant regardless of catalog size. A full export contains active products only;
+ * an incremental export ({@code since}) also includes deactivated products so feed consumers
+ * can see removals.
+ */
+@Service
+public class ProductExportService {
+    private static final Logger log = LoggerFactory.getLogger(ProductExportService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectWriter writer;
+
+    @Value("${app.export.batch-size:500}")
+    private int batchSize;
+
+    public ProductExportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        // Flushing is done once per batch below rather than after every document
+        this.writer = objectMapper.writerFor(Product.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public long export(LocalDateTime since, OutputStream out) throws IOException {
+        Query query = since == null
+            ? Query.query(where("active").is(true)).with(Sort.by(Sort.Direction.ASC, "_id"))
+            : Query.query(where("updatedAt").gte(since)).with(Sort.by(Sort.Direction.ASC, "updatedAt", "_id"));
+        query.cursorBatchSize(batchSize);
+
+        long started = System.currentTimeMillis();
+        long count = 0;
+        try (JsonGenerator generator = writer.getFactory().createGenerator(out);
+             Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are separated explicitly, not by Jackson's default root separator (a space)
+            generator.setRootValueSeparator(null);
+
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++count % batchSize == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        log.info("Exported {} products (since: {}) in {} ms", count, since, System.currentTimeMillis() - started);
+        return count;
+    }
+}
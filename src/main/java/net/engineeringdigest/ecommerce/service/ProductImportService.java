@@ -0,0 +1,316 @@
+package net.engineeringdigest.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import net.engineeringdigest.ecommerce.dto.ImportError;
+import net.engineeringdigest.ecommerce.dto.ImportReport;
+import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.entity.RatingSummary;
+import net.engineeringdigest.ecommerce.enums.ProductChangeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams products from a CSV or NDJSON body into Mongo. The request thread parses rows into
+ * batches; a small worker pool validates each batch with the same rules as
+ * {@code POST /products} and writes it with one unordered insertMany. The work queue is bounded
+ * and the request thread runs a batch itself when it is full, so at most
+ * (workers + queue + 1) batches are held in memory. Bad rows are reported and skipped.
+ */
+@Service
+public class ProductImportService {
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+    private static final Set<String> CSV_COLUMNS = Set.of("name", "description", "price", "stockquantity", "category", "imageurl");
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProductService productService;
+    private final ProductEventPublisher productEventPublisher;
+    private final ProductListingCache productListingCache;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.workers:4}")
+    private int workers;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public ProductImportService(MongoTemplate mongoTemplate,
+                                ObjectMapper objectMapper,
+                                ProductService productService,
+                                ProductEventPublisher productEventPublisher,
+                                ProductListingCache productListingCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.productService = productService;
+        this.productEventPublisher = productEventPublisher;
+        this.productListingCache = productListingCache;
+    }
+
+    public ImportReport importCsv(InputStream input) throws IOException {
+        BufferedReader reader = reader(input);
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV body is empty");
+        }
+        List<String> columns = new ArrayList<>();
+        for (String column : parseCsvLine(header)) {
+            columns.add(column.trim().toLowerCase(Locale.ROOT));
+        }
+        if (!columns.containsAll(Set.of("name", "description", "price", "category"))) {
+            throw new IllegalArgumentException("CSV header must contain name, description, price and category columns");
+        }
+        // Row numbers are physical line numbers, so the header is row 1
+        return run(reader, 1, line -> {
+            List<String> values = parseCsvLine(line);
+            if (values.size() != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " columns but found " + values.size());
+            }
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                if (CSV_COLUMNS.contains(columns.get(i))) {
+                    row.put(columns.get(i), values.get(i).trim());
+                }
+            }
+            return Product.builder()
+                .name(row.get("name"))
+                .description(row.get("description"))
+                .price(parseDecimal(row.get("price")))
+                .stockQuantity(parseInt(row.get("stockquantity")))
+                .category(row.get("category"))
+                .imageUrl(emptyToNull(row.get("imageurl")))
+                .build();
+        });
+    }
+
+    public ImportReport importNdjson(InputStream input) throws IOException {
+        return run(reader(input), 0, line -> {
+            try {
+                return objectMapper.readValue(line, Product.class);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid product JSON");
+            }
+        });
+    }
+
+    private ImportReport run(BufferedReader reader, long firstRow, RowParser parser) throws IOException {
+        long started = System.currentTimeMillis();
+        Job job = new Job();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(workers), runnable -> {
+                Thread thread = new Thread(runnable, "product-import-" + job.threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        try {
+            List<Row> batch = new ArrayList<>(batchSize);
+            long rowNumber = firstRow;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rowNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                job.received.incrementAndGet();
+                batch.add(new Row(rowNumber, line));
+                if (batch.size() >= batchSize) {
+                    List<Row> full = batch;
+                    executor.execute(() -> importBatch(full, parser, job));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                List<Row> last = batch;
+                executor.execute(() -> importBatch(last, parser, job));
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (job.imported.get() > 0) {
+            productListingCache.invalidate();
+        }
+        long duration = Math.max(1, System.currentTimeMillis() - started);
+        List<ImportError> errors = new ArrayList<>(job.errors);
+        errors.sort((a, b) -> Long.compare(a.getRow(), b.getRow()));
+        log.info("Imported {} of {} products in {} ms ({} failed)", job.imported.get(), job.received.get(), duration, job.failed.get());
+        return ImportReport.builder()
+            .received(job.received.get())
+            .imported(job.imported.get())
+            .failed(job.failed.get())
+            .durationMs(duration)
+            .rowsPerSecond(job.received.get() * 1000.0 / duration)
+            .errors(errors)
+            .errorsTruncated(job.failed.get() > errors.size())
+            .build();
+    }
+
+    private void importBatch(List<Row> rows, RowParser parser, Job job) {
+        List<Product> products = new ArrayList<>(rows.size());
+        List<Row> accepted = new ArrayList<>(rows.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (Row row : rows) {
+            try {
+                Product product = parser.parse(row.text);
+                productService.validateProduct(product);
+                product.setId(UUID.randomUUID().toString());
+                product.setActive(true);
+                product.setVersion(0L);
+                product.setRating(new RatingSummary());
+                product.setCreatedAt(now);
+                product.setUpdatedAt(now);
+                products.add(product);
+                accepted.add(row);
+            } catch (RuntimeException e) {
+                job.fail(row.number, e.getMessage(), maxReportedErrors);
+            }
+        }
+        if (products.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+            bulk.insert(products);
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                rejected.add(error.getIndex());
+                job.fail(accepted.get(error.getIndex()).number, error.getMessage(), maxReportedErrors);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to insert import batch of {} products: {}", products.size(), e.getMessage());
+            for (Row row : accepted) {
+                job.fail(row.number, "Insert failed: " + e.getMessage(), maxReportedErrors);
+            }
+            return;
+        }
+
+        for (int i = 0; i < products.size(); i++) {
+            if (!rejected.contains(i)) {
+                productEventPublisher.publish(products.get(i).getId(), ProductChangeType.CREATED);
+            }
+        }
+        job.imported.addAndGet(products.size() - rejected.size());
+    }
+
+    // RFC 4180 style: fields may be quoted, with "" as an escaped quote; no line breaks inside fields
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + value);
+        }
+    }
+
+    private static int parseInt(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid stock quantity: " + value);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static BufferedReader reader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        Product parse(String line);
+    }
+
+    private record Row(long number, String text) {
+    }
+
+    private static final class Job {
+        private final AtomicInteger threads = new AtomicInteger();
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final ConcurrentLinkedQueue<ImportError> errors = new ConcurrentLinkedQueue<>();
+
+        private void fail(long row, String message, int maxReported) {
+            if (failed.incrementAndGet() <= maxReported) {
+                errors.add(new ImportError(row, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package net.engineeringdigest.ecommerce.service;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.engineeringdigest.ecommerce.constant.AppConstants;
+import net.engineeringdigest.ecommerce.dto.ProductChangeEvent;
+import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the product search index in sync with MongoDB by consuming product change events.
+ * Each poll of events is coalesced per product id and written to Elasticsearch as one bulk
+ * request before the listener returns, so offsets are only committed once the index has the
+ * change. Only 429 and 5xx failures are worth retrying: they throw and the container
+ * redelivers the batch with backoff. Any other rejection would fail the same way every time,
+ * so it is logged, counted and skipped; the next change to the product or a reindex repairs
+ * it. Each write re-reads the current product state, so replayed or out-of-order events are
+ * harmless.
+ */
+@Service
+public class ProductIndexingService {
+    private static final Logger log = LoggerFactory.getLogger(ProductIndexingService.class);
+
+    private final ProductSearchService productSearchService;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Counter indexedCounter;
+    private final Counter deletedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final Timer bulkTimer;
+    private final Timer lagTimer;
+
+    @Value("${app.search.indexer.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${app.search.indexer.initial-backoff-ms:200}")
+    private long initialBackoffMs;
+
+    @Value("${app.search.indexer.max-backoff-ms:10000}")
+    private long maxBackoffMs;
+
+    public ProductIndexingService(ProductSearchService productSearchService,
+                                  ProductRepository productRepository,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.productSearchService = productSearchService;
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.indexedCounter = meterRegistry.counter("search.indexer.documents", "result", "indexed");
+        this.deletedCounter = meterRegistry.counter("search.indexer.documents", "result", "deleted");
+        this.failedCounter = meterRegistry.counter("search.indexer.documents", "result", "failed");
+        this.rejectedCounter = meterRegistry.counter("search.indexer.documents", "result", "rejected");
+        this.bulkTimer = meterRegistry.timer("search.indexer.bulk");
+        this.lagTimer = meterRegistry.timer("search.indexer.lag");
+    }
+
+    @KafkaListener(
+        topics = AppConstants.PRODUCT_EVENTS_TOPIC,
+        groupId = "product-indexer",
+        containerFactory = "productIndexerListenerContainerFactory",
+        autoStartup = "${app.search.elasticsearch.enabled:true}"
+    )
+    public void onProductChanges(List<String> messages) {
+        Map<String, Long> batch = new HashMap<>();
+        for (String message : messages) {
+            try {
+                ProductChangeEvent event = objectMapper.readValue(message, ProductChangeEvent.class);
+                batch.merge(event.getProductId(), event.getTimestamp(), Math::min);
+            } catch (Exception e) {
+                log.error("Discarding malformed product change event: {}", e.getMessage());
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (!productSearchService.isAvailable()) {
+            throw new IllegalStateException("Elasticsearch unavailable, " + batch.size() + " product changes not indexed");
+        }
+        flushBatch(batch);
+    }
+
+    private void flushBatch(Map<String, Long> batch) {
+        Map<String, Product> products = productRepository.findAllById(batch.keySet()).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<BulkOperation> operations = new ArrayList<>(batch.size());
+        for (String productId : batch.keySet()) {
+            Product product = products.get(productId);
+            if (product != null && product.isActive()) {
+                operations.add(ProductSearchService.indexOperation(product));
+            } else if (product != null) {
+                operations.add(ProductSearchService.deleteOperation(product));
+            } else {
+                operations.add(BulkOperation.of(op -> op.delete(del -> del.id(productId))));
+            }
+        }
+
+        BulkResponse response;
+        try {
+            response = executeWithRetry(operations);
+        } catch (ElasticsearchException e) {
+            log.error("Bulk request for {} products rejected, skipping them: {}", batch.size(), e.getMessage());
+            rejectedCounter.increment(batch.size());
+            return;
+        }
+        if (response == null) {
+            failedCounter.increment(batch.size());
+            throw new IllegalStateException("Bulk indexing of " + batch.size() + " products failed");
+        }
+
+        long now = System.currentTimeMillis();
+        int failed = 0;
+        for (BulkResponseItem item : response.items()) {
+            if (item.error() != null) {
+                if (ProductSearchService.isStale(item)) {
+                    log.debug("Skipped product {}: a newer version is already indexed", item.id());
+                } else if (isRetryable(item.status())) {
+                    log.warn("Failed to index product {}: {}", item.id(), item.error().reason());
+                    failed++;
+                } else {
+                    log.error("Elasticsearch rejected product {} with status {}, skipping it: {}",
+                        item.id(), item.status(), item.error().reason());
+                    rejectedCounter.increment();
+                }
+                continue;
+            }
+            if (item.operationType() == OperationType.Delete) {
+                deletedCounter.increment();
+            } else {
+                indexedCounter.increment();
+            }
+            Long timestamp = batch.get(item.id());
+            if (timestamp != null) {
+                lagTimer.record(Math.max(0, now - timestamp), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (failed > 0) {
+            // Redelivery re-runs the whole batch; documents already written are simply rewritten
+            failedCounter.increment(failed);
+            throw new IllegalStateException(failed + " of " + batch.size() + " products failed to index");
+        }
+    }
+
+    private BulkResponse executeWithRetry(List<BulkOperation> operations) {
+        long backoffMs = initialBackoffMs;
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            try {
+                long start = System.nanoTime();
+                BulkResponse response = productSearchService.bulk(operations);
+                bulkTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                return response;
+            } catch (ElasticsearchException e) {
+                if (!isRetryable(e.status())) {
+                    throw e;
+                }
+                log.warn("Bulk indexing attempt {}/{} failed: {}", attempt, maxRetries, e.getMessage());
+                if (attempt == maxRetries || !sleep(backoffMs)) {
+                    break;
+                }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            } catch (Exception e) {
+                log.warn("Bulk indexing attempt {}/{} failed: {}", attempt, maxRetries, e.getMessage());
+                if (attempt == maxRetries || !sleep(backoffMs)) {
+                    break;
+                }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package net.engineeringdigest.ecommerce.service;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Caches listing and search result pages in Redis. Keys embed a catalog version counter that
+ * is incremented whenever a change could alter a summary, so a write invalidates every cached
+ * page at once with a single INCR and the old pages simply expire.
+ */
+@Service
+public class ProductListingCache {
+    private static final Logger log = LoggerFactory.getLogger(ProductListingCache.class);
+    private static final String VERSION_KEY = "products:listing:version";
+    private static final String PAGE_KEY_PREFIX = "products:listing:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${app.cache.listing.ttl:PT5M}")
+    private Duration ttl;
+
+    public ProductListingCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.hits = meterRegistry.counter("cache.gets", "cache", "product.listing", "result", "hit");
+        this.misses = meterRegistry.counter("cache.gets", "cache", "product.listing", "result", "miss");
+    }
+
+    public <T> T get(String request, JavaType type, Supplier<T> loader) {
+        String key;
+        try {
+            String version = redisTemplate.opsForValue().get(VERSION_KEY);
+            key = PAGE_KEY_PREFIX + (version == null ? "0" : version) + ":" + request;
+            String cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                hits.increment();
+                return objectMapper.readValue(cached, type);
+            }
+        } catch (Exception e) {
+            log.warn("Listing cache unavailable for {}: {}", request, e.getMessage());
+            return loader.get();
+        }
+
+        misses.increment();
+        T value = loader.get();
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(value), ttl);
+        } catch (Exception e) {
+            log.warn("Failed to cache listing {}: {}", request, e.getMessage());
+        }
+        return value;
+    }
+
+    // Current catalog version, or null when Redis cannot be reached
+    public String currentVersion() {
+        try {
+            String version = redisTemplate.opsForValue().get(VERSION_KEY);
+            return version == null ? "0" : version;
+        } catch (Exception e) {
+            log.warn("Failed to read listing version: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public void invalidate() {
+        try {
+            redisTemplate.opsForValue().increment(VERSION_KEY);
+        } catch (Exception e) {
+            log.error("Failed to invalidate product listings: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package net.engineeringdigest.ecommerce.service;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import net.engineeringdigest.ecommerce.dto.ReindexStatus;
+import net.engineeringdigest.ecommerce.entity.Product;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Service
+public class ProductReindexService {
+    private static final Logger log = LoggerFactory.getLogger(ProductReindexService.class);
+    private static final int SAMPLES_PER_PARTITION = 100;
+    private static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(1);
+
+    private final ProductSearchService productSearchService;
+    private final MongoTemplate mongoTemplate;
+
+    private final AtomicReference<Job> currentJob = new AtomicReference<>();
+
+    @Value("${app.search.reindex.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.search.reindex.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.search.reindex.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${app.search.reindex.max-failed-documents:0}")
+    private long maxFailedDocuments;
+
+    @Value("${app.search.reindex.delete-previous-index:true}")
+    private boolean deletePreviousIndex;
+
+    public ProductReindexService(ProductSearchService productSearchService, MongoTemplate mongoTemplate) {
+        this.productSearchService = productSearchService;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapIndex() {
+        if (!productSearchService.isEnabled()) {
+            return;
+        }
+        try {
+            if (!productSearchService.aliasExists()) {
+                log.info("No product search index found, starting initial build");
+                startReindex();
+            }
+        } catch (Exception e) {
+            log.error("Failed to check product search index: {}", e.getMessage());
+        }
+    }
+
+    public ReindexStatus startReindex() {
+        if (!productSearchService.isEnabled()) {
+            throw new IllegalStateException("Elasticsearch product search is disabled");
+        }
+        Job job = new Job();
+        Job running = currentJob.get();
+        if ((running != null && "RUNNING".equals(running.state)) || !currentJob.compareAndSet(running, job)) {
+            throw new IllegalStateException("A reindex job is already running");
+        }
+        Thread coordinator = new Thread(() -> run(job), "product-reindex");
+        coordinator.setDaemon(true);
+        coordinator.start();
+        return job.toStatus();
+    }
+
+    public ReindexStatus getStatus() {
+        Job job = currentJob.get();
+        return job == null ? ReindexStatus.builder().state("IDLE").build() : job.toStatus();
+    }
+
+    private void run(Job job) {
+        ExecutorService readers = Executors.newFixedThreadPool(parallelism);
+        boolean swapped = false;
+        try {
+            job.index = productSearchService.createIndex();
+            productSearchService.prepareForBulkLoad(job.index);
+            job.total.set(mongoTemplate.count(Query.query(where("active").is(true)), Product.class));
+
+            List<Criteria> partitions = partition();
+            job.partitions = partitions.size();
+            log.info("Reindexing {} products into {} using {} partitions", job.total.get(), job.index, partitions.size());
+
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (Criteria range : partitions) {
+                tasks.add(CompletableFuture.runAsync(() -> {
+                    indexRange(job, range);
+                    job.completedPartitions.incrementAndGet();
+                }, readers));
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+
+            productSearchService.finishBulkLoad(job.index);
+            long indexedCount = productSearchService.count(job.index);
+            // Products created during the load can raise the count, never lower it
+            long missing = Math.max(job.failed.get(), job.total.get() - indexedCount);
+            if (missing > maxFailedDocuments) {
+                throw new IllegalStateException(String.format(
+                    "Index %s holds %d of %d documents (%d failed), above the limit of %d; keeping the current index",
+                    job.index, indexedCount, job.total.get(), job.failed.get(), maxFailedDocuments));
+            }
+            if (missing > 0) {
+                log.warn("Index {} holds {} documents, expected {}", job.index, indexedCount, job.total.get());
+            }
+
+            List<String> previous = productSearchService.swapAlias(job.index);
+            swapped = true;
+            catchUp(job);
+            if (deletePreviousIndex) {
+                for (String index : previous) {
+                    productSearchService.deleteIndex(index);
+                }
+            }
+
+            job.finish("COMPLETED", null);
+            log.info("Reindex into {} completed: {} documents at {} docs/sec",
+                job.index, job.indexed.get(), String.format("%.1f", job.docsPerSecond()));
+        } catch (Exception e) {
+            log.error("Reindex into {} failed: {}", job.index, e.getMessage(), e);
+            job.finish("FAILED", e.getMessage());
+            if (job.index != null && !swapped) {
+                try {
+                    productSearchService.deleteIndex(job.index);
+                } catch (Exception cleanup) {
+                    log.warn("Failed to delete abandoned index {}: {}", job.index, cleanup.getMessage());
+                }
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the active products into contiguous _id ranges of roughly equal size, using a
+     * random sample of ids as boundaries so partitioning does not need a full collection scan.
+     */
+    private List<Criteria> partition() {
+        int samples = parallelism * SAMPLES_PER_PARTITION;
+        Aggregation sample = Aggregation.newAggregation(
+            Aggregation.match(where("active").is(true)),
+            Aggregation.sample(samples),
+            Aggregation.project("_id"),
+            Aggregation.sort(Sort.Direction.ASC, "_id"));
+        List<Object> ids = mongoTemplate.aggregate(sample, Product.class, Document.class).getMappedResults().stream()
+            .map(document -> document.get("_id"))
+            .toList();
+
+        List<Object> boundaries = new ArrayList<>();
+        for (int i = 1; i < parallelism && ids.size() >= parallelism; i++) {
+            Object boundary = ids.get(i * ids.size() / parallelism);
+            if (boundaries.isEmpty() || !boundaries.get(boundaries.size() - 1).equals(boundary)) {
+                boundaries.add(boundary);
+            }
+        }
+
+        List<Criteria> ranges = new ArrayList<>();
+        Object lower = null;
+        for (Object upper : boundaries) {
+            ranges.add(range(lower, upper));
+            lower = upper;
+        }
+        ranges.add(range(lower, null));
+        return ranges;
+    }
+
+    private Criteria range(Object lower, Object upper) {
+        Criteria criteria = where("active").is(true);
+        if (lower != null && upper != null) {
+            return criteria.and("_id").gte(lower).lt(upper);
+        }
+        if (lower != null) {
+            return criteria.and("_id").gte(lower);
+        }
+        if (upper != null) {
+            return criteria.and("_id").lt(upper);
+        }
+        return criteria;
+    }
+
+    private void indexRange(Job job, Criteria range) {
+        Query query = Query.query(range).with(Sort.by("_id")).cursorBatchSize(batchSize);
+        List<BulkOperation> batch = new ArrayList<>(batchSize);
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            products.forEach(product -> {
+                batch.add(ProductSearchService.indexOperation(product));
+                if (batch.size() == batchSize) {
+                    write(job, batch);
+                    batch.clear();
+                }
+            });
+        }
+        if (!batch.isEmpty()) {
+            write(job, batch);
+        }
+    }
+
+    // Re-applies anything written while the bulk load was running; the incremental indexer
+    // has been writing to the old index until the alias swap
+    private void catchUp(Job job) {
+        LocalDateTime since = job.startedAt.minus(CATCH_UP_OVERLAP);
+        Query query = Query.query(where("updatedAt").gte(since)).cursorBatchSize(batchSize);
+        List<BulkOperation> batch = new ArrayList<>(batchSize);
+        log.info("Applying changes made since {} to {}", since, job.index);
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            products.forEach(product -> {
+                batch.add(product.isActive()
+                    ? ProductSearchService.indexOperation(product)
+                    : ProductSearchService.deleteOperation(product));
+                if (batch.size() == batchSize) {
+                    write(job, batch);
+                    batch.clear();
+                }
+            });
+        }
+        if (!batch.isEmpty()) {
+            write(job, batch);
+        }
+    }
+
+    // Retries the request on I/O errors and 429/5xx rejections, and retries only the
+    // rejected items when the cluster pushes back on part of a bulk request
+    private void write(Job job, List<BulkOperation> operations) {
+        List<BulkOperation> remaining = operations;
+        for (int attempt = 1; attempt <= maxRetries && !remaining.isEmpty(); attempt++) {
+            try {
+                BulkResponse response = productSearchService.bulk(job.index, remaining);
+                List<BulkOperation> rejected = new ArrayList<>();
+                long failed = 0;
+                List<BulkResponseItem> items = response.items();
+                for (int i = 0; i < items.size(); i++) {
+                    BulkResponseItem item = items.get(i);
+                    // A stale write means a newer version of the product is already there
+                    if (item.error() == null || ProductSearchService.isStale(item)) {
+                        job.indexed.incrementAndGet();
+                    } else if (isRetryable(item.status()) && attempt < maxRetries) {
+                        rejected.add(remaining.get(i));
+                    } else {
+                        failed++;
+                    }
+                }
+                job.failed.addAndGet(failed);
+                remaining = rejected;
+            } catch (IOException | ElasticsearchException e) {
+                if (e instanceof ElasticsearchException es && !isRetryable(es.status())) {
+                    log.warn("Reindex bulk request rejected: {}", e.getMessage());
+                    break;
+                }
+                log.warn("Reindex bulk attempt {}/{} failed: {}", attempt, maxRetries, e.getMessage());
+                if (attempt == maxRetries) {
+                    break;
+                }
+            }
+            if (!remaining.isEmpty() && !backoff(attempt)) {
+                break;
+            }
+        }
+        job.failed.addAndGet(remaining.size());
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    private static boolean backoff(int attempt) {
+        try {
+            Thread.sleep(200L << attempt);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static class Job {
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicInteger completedPartitions = new AtomicInteger();
+        private volatile String state = "RUNNING";
+        private volatile String index;
+        private volatile int partitions;
+        private volatile LocalDateTime finishedAt;
+        private volatile long finishedNanos;
+        private volatile String error;
+
+        private void finish(String finalState, String failure) {
+            finishedNanos = System.nanoTime();
+            finishedAt = LocalDateTime.now();
+            error = failure;
+            state = finalState;
+        }
+
+        private double docsPerSecond() {
+            long end = finishedNanos == 0 ? System.nanoTime() : finishedNanos;
+            double seconds = (end - startNanos) / 1_000_000_000.0;
+            return seconds <= 0 ? 0 : indexed.get() / seconds;
+        }
+
+        private ReindexStatus toStatus() {
+            long totalDocuments = total.get();
+            return ReindexStatus.builder()
+                .state(state)
+                .index(index)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .totalDocuments(totalDocuments)
+                .indexedDocuments(indexed.get())
+                .failedDocuments(failed.get())
+                .partitions(partitions)
+                .completedPartitions(completedPartitions.get())
+                .progressPercent(totalDocuments == 0 ? 0 : Math.min(100.0, indexed.get() * 100.0 / totalDocuments))
+                .docsPerSecond(docsPerSecond())
+                .error(error)
+                .build();
+        }
+    }
+}
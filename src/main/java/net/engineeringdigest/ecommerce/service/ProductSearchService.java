@@ -0,0 +1,212 @@
+package net.engineeringdigest.ecommerce.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.VersionType;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import net.engineeringdigest.ecommerce.dto.ProductSearchDocument;
+import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.enums.SearchOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class ProductSearchService {
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
+    private static final String INDEX_DEFINITION = "elasticsearch/product-index.json";
+    private static final DateTimeFormatter INDEX_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ElasticsearchClient elasticsearchClient;
+
+    @Value("${app.search.elasticsearch.enabled:true}")
+    private boolean enabled;
+
+    // Searches and incremental updates go through this alias; the concrete index behind it is
+    // replaced by ProductReindexService
+    @Value("${app.search.index-name:products}")
+    private String aliasName;
+
+    @Value("${app.search.replicas:1}")
+    private int replicas;
+
+    private volatile boolean indexReady;
+
+    public ProductSearchService(ElasticsearchClient elasticsearchClient) {
+        this.elasticsearchClient = elasticsearchClient;
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.availability-check-interval-ms:30000}")
+    public void refreshAvailability() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            boolean exists = aliasExists();
+            if (exists != indexReady) {
+                log.info("Elasticsearch product index {} is now {}", aliasName, exists ? "available" : "unavailable");
+            }
+            indexReady = exists;
+        } catch (Exception e) {
+            if (indexReady) {
+                log.error("Elasticsearch product index {} is unreachable: {}", aliasName, e.getMessage());
+            }
+            indexReady = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isAvailable() {
+        return enabled && indexReady;
+    }
+
+    public boolean aliasExists() throws IOException {
+        return elasticsearchClient.indices().exists(e -> e.index(aliasName)).value();
+    }
+
+    public List<String> search(String query, SearchOperator operator, int page, int size) throws IOException {
+        SearchResponse<ProductSearchDocument> response = elasticsearchClient.search(s -> s
+                .index(aliasName)
+                .from(page * size)
+                .size(size)
+                .source(src -> src.fetch(false))
+                .trackTotalHits(t -> t.enabled(false))
+                .query(q -> q.bool(b -> b
+                        .must(m -> m.multiMatch(mm -> mm
+                                .query(query)
+                                .fields("name^3", "name.autocomplete^2", "category.text^2", "description")
+                                .type(TextQueryType.BestFields)
+                                .operator(operator == SearchOperator.OR ? Operator.Or : Operator.And)
+                                .fuzziness("AUTO")))
+                        .should(sh -> sh.matchPhrase(mp -> mp
+                                .field("name")
+                                .query(query)
+                                .boost(2.0f)))
+                        .filter(f -> f.term(t -> t
+                                .field("active")
+                                .value(FieldValue.of(true)))))),
+                ProductSearchDocument.class);
+
+        return response.hits().hits().stream()
+                .map(Hit::id)
+                .toList();
+    }
+
+    // Writes carry the product version as an external version, so a write built from an older
+    // read of the product is rejected with 409 instead of replacing a newer document. The same
+    // version may be written again: replays and the reindex catch-up rewrite unchanged products.
+    public static BulkOperation indexOperation(Product product) {
+        return BulkOperation.of(op -> op.index(idx -> idx
+            .id(product.getId())
+            .version(versionOf(product))
+            .versionType(VersionType.ExternalGte)
+            .document(ProductSearchDocument.from(product))));
+    }
+
+    public static BulkOperation deleteOperation(Product product) {
+        return BulkOperation.of(op -> op.delete(del -> del
+            .id(product.getId())
+            .version(versionOf(product))
+            .versionType(VersionType.ExternalGte)));
+    }
+
+    // A newer version of the product is already indexed
+    public static boolean isStale(BulkResponseItem item) {
+        return item.status() == 409;
+    }
+
+    private static long versionOf(Product product) {
+        return product.getVersion() == null ? 0 : product.getVersion();
+    }
+
+    public BulkResponse bulk(List<BulkOperation> operations) throws IOException {
+        return bulk(aliasName, operations);
+    }
+
+    public BulkResponse bulk(String index, List<BulkOperation> operations) throws IOException {
+        return elasticsearchClient.bulk(b -> b.index(index).operations(operations));
+    }
+
+    public String createIndex() throws IOException {
+        String index = aliasName + "-" + LocalDateTime.now().format(INDEX_SUFFIX);
+        try (InputStream definition = new ClassPathResource(INDEX_DEFINITION).getInputStream()) {
+            elasticsearchClient.indices().create(c -> c.index(index).withJson(definition));
+        }
+        log.info("Created Elasticsearch index {}", index);
+        return index;
+    }
+
+    public void prepareForBulkLoad(String index) throws IOException {
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(index)
+                .settings(s -> s
+                        .refreshInterval(t -> t.time("-1"))
+                        .numberOfReplicas("0")));
+    }
+
+    public void finishBulkLoad(String index) throws IOException {
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(index)
+                .settings(s -> s
+                        .refreshInterval(t -> t.time("1s"))
+                        .numberOfReplicas(String.valueOf(replicas))));
+        elasticsearchClient.indices().refresh(r -> r.index(index));
+    }
+
+    public long count(String index) throws IOException {
+        return elasticsearchClient.count(c -> c.index(index)).count();
+    }
+
+    /**
+     * Points the alias at {@code newIndex} in a single atomic aliases request and returns the
+     * indices that were previously behind it. A concrete index that still uses the alias name
+     * (created before aliases were introduced) is removed as part of the same request.
+     */
+    public List<String> swapAlias(String newIndex) throws IOException {
+        List<Action> actions = new ArrayList<>();
+        List<String> previous = new ArrayList<>();
+
+        boolean aliasPresent = elasticsearchClient.indices().existsAlias(e -> e.name(aliasName)).value();
+        if (aliasPresent) {
+            Set<String> current = elasticsearchClient.indices().getAlias(g -> g.name(aliasName)).result().keySet();
+            for (String index : current) {
+                previous.add(index);
+                actions.add(Action.of(a -> a.remove(r -> r.index(index).alias(aliasName))));
+            }
+        } else if (aliasExists()) {
+            actions.add(Action.of(a -> a.removeIndex(r -> r.index(aliasName))));
+        }
+        actions.add(Action.of(a -> a.add(ad -> ad.index(newIndex).alias(aliasName))));
+
+        elasticsearchClient.indices().updateAliases(u -> u.actions(actions));
+        indexReady = true;
+        log.info("Alias {} now points to {} (previously {})", aliasName, newIndex, previous);
+        return previous;
+    }
+
+    public void deleteIndex(String index) throws IOException {
+        elasticsearchClient.indices().delete(d -> d.index(index));
+        log.info("Deleted Elasticsearch index {}", index);
+    }
+}
@@ -1,98 +1,197 @@
 package net.engineeringdigest.ecommerce.service;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import net.engineeringdigest.ecommerce.constant.AppConstants;
+import net.engineeringdigest.ecommerce.dto.CursorPage;
+import net.engineeringdigest.ecommerce.dto.PageCursor;
+import net.engineeringdigest.ecommerce.dto.ProductSummary;
 import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.entity.RatingSummary;
 import net.engineeringdigest.ecommerce.entity.Review;
+import net.engineeringdigest.ecommerce.enums.ProductChangeType;
+import net.engineeringdigest.ecommerce.enums.SearchOperator;
 import net.engineeringdigest.ecommerce.exception.ResourceNotFoundException;
+import net.engineeringdigest.ecommerce.repository.KeysetSlice;
 import net.engineeringdigest.ecommerce.repository.ProductRepository;
 import net.engineeringdigest.ecommerce.repository.ReviewRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+    private static final JavaType SUMMARY_PAGE_TYPE =
+        TypeFactory.defaultInstance().constructParametricType(CursorPage.class, ProductSummary.class);
+    private static final JavaType SUMMARY_LIST_TYPE =
+        TypeFactory.defaultInstance().constructCollectionType(List.class, ProductSummary.class);
+    // API sort keys mapped to document fields; each has a matching (..., _id) index in init-mongo.js
+    private static final Map<String, String> SORT_FIELDS = Map.of(
+        "id", "_id",
+        "name", "name",
+        "createdAt", "createdAt",
+        "updatedAt", "updatedAt"
+    );
 
     private final ProductRepository productRepository;
     private final ReviewRepository reviewRepository;
-    private final RedisService redisService;
+    private final ProductCache productCache;
+    private final ProductSearchService productSearchService;
+    private final ProductEventPublisher productEventPublisher;
+    private final InMemoryProductIndex inMemoryProductIndex;
+    private final ProductListingCache productListingCache;
+    private final InventoryService inventoryService;
 
     @Transactional
     public Product createProduct(Product product) {
         validateProduct(product);
         
         product.setId(UUID.randomUUID().toString());
+        product.setVersion(null);
         product.setActive(true);
+        // Ratings come only from reviews
+        product.setRating(new RatingSummary());
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
         
         Product savedProduct = productRepository.save(product);
+        // Drop any negative cache entry for this id
+        productCache.evict(savedProduct.getId());
+        productListingCache.invalidate();
+        productEventPublisher.publish(savedProduct.getId(), ProductChangeType.CREATED);
         log.info("Created new product with ID: {}", savedProduct.getId());
         return savedProduct;
     }
 
     public Product getProduct(String id) {
-        String cacheKey = "product:" + id;
-        Product cachedProduct = redisService.get(cacheKey, Product.class);
-        
-        if (cachedProduct != null) {
-            log.debug("Product {} found in cache", id);
-            if (!cachedProduct.isActive()) {
-                log.warn("Product {} is not active", id);
-                throw new ResourceNotFoundException("Product not found or inactive");
-            }
-            return cachedProduct;
-        }
-        
-        log.debug("Product {} not found in cache, fetching from database", id);
+        // Concurrent misses for the same id share a single database read; missing and
+        // inactive ids are cached as negative entries
+        Product product = productCache.get(id, key -> productRepository.findById(key)
+            .filter(Product::isActive)
+            .orElse(null));
         
-        Product product = productRepository.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
-            
-        if (!product.isActive()) {
-            log.warn("Product {} is not active", id);
+        if (product == null || !product.isActive()) {
+            log.warn("Product {} not found or inactive", id);
             throw new ResourceNotFoundException("Product not found or inactive");
         }
-        
-        redisService.set(cacheKey, product);
         return product;
     }
 
-    public List<Product> getAllProducts() {
-        return productRepository.findByActive(true);
+    /**
+     * Validator for a listing page: every change that can alter a summary bumps the listing
+     * version, so an unchanged version means the page is unchanged. Null when unknown.
+     */
+    public String getListingETag() {
+        String version = productListingCache.currentVersion();
+        return version == null ? null : "listing-" + version;
     }
 
-    public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategoryAndActive(category, true);
+    public List<Product> getProducts(Collection<String> ids) {
+        if (ids.size() > AppConstants.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("At most " + AppConstants.MAX_PAGE_SIZE + " products can be fetched at once");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Product ids cannot be null");
+        }
+        Map<String, Product> products = productCache.getAll(ids, missing ->
+            productRepository.findAllById(missing).stream()
+                .filter(Product::isActive)
+                .collect(Collectors.toMap(Product::getId, Function.identity())));
+
+        // Request order, skipping missing and inactive ids
+        return ids.stream()
+            .map(products::get)
+            .filter(Objects::nonNull)
+            .toList();
     }
 
-    public List<Product> searchProducts(String query) {
+    public CursorPage<ProductSummary> getProducts(String category, String sortBy, String direction, String cursor, int size) {
+        if (size < 1 || size > AppConstants.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + AppConstants.MAX_PAGE_SIZE);
+        }
+        String sortField = SORT_FIELDS.get(sortBy);
+        if (sortField == null) {
+            throw new IllegalArgumentException("Cannot sort by '" + sortBy + "', supported fields: " + SORT_FIELDS.keySet());
+        }
+        Sort.Direction sortDirection = Sort.Direction.fromString(direction);
+
+        PageCursor after = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        if (after != null && (!sortBy.equals(after.getSortBy()) || !sortDirection.name().equals(after.getDirection()))) {
+            throw new IllegalArgumentException("Page cursor was issued for a different sort order");
+        }
+
+        String request = "list:" + category + ":" + sortBy + ":" + sortDirection + ":" + size + ":" + cursor;
+        return productListingCache.get(request, SUMMARY_PAGE_TYPE, () -> {
+            KeysetSlice<Product> slice = productRepository.findActiveSlice(category, sortField, sortDirection,
+                after == null ? null : after.getValue(),
+                after == null ? null : after.getId(),
+                size, ProductSummary.FIELDS);
+
+            String nextCursor = slice.hasNext()
+                ? new PageCursor(sortBy, sortDirection.name(), slice.getLastSortValue(), slice.getLastId()).encode()
+                : null;
+            List<ProductSummary> items = slice.getItems().stream().map(ProductSummary::from).toList();
+            return new CursorPage<>(items, items.size(), slice.hasNext(), nextCursor);
+        });
+    }
+
+    public List<ProductSummary> searchProducts(String query, SearchOperator operator, int page, int size) {
         log.info("Searching products with query: {}", query);
-        
-        // Create case-insensitive search criteria
-        String searchRegex = ".*" + query.toLowerCase() + ".*";
-        
-        return productRepository.findAll().stream()
-            .filter(product -> 
-                (product.getName() != null && product.getName().toLowerCase().matches(searchRegex)) ||
-                (product.getDescription() != null && product.getDescription().toLowerCase().matches(searchRegex)) ||
-                (product.getCategory() != null && product.getCategory().toLowerCase().matches(searchRegex))
-            )
-            .filter(Product::isActive)
+        validatePage(page, size);
+        String request = "search:" + operator + ":" + page + ":" + size + ":" + query;
+        return productListingCache.get(request, SUMMARY_LIST_TYPE, () -> search(query, operator, page, size));
+    }
+
+    private List<ProductSummary> search(String query, SearchOperator operator, int page, int size) {
+        if (productSearchService.isAvailable()) {
+            try {
+                return loadSummariesInOrder(productSearchService.search(query, operator, page, size));
+            } catch (Exception e) {
+                log.warn("Elasticsearch search failed, falling back to local index: {}", e.getMessage());
+            }
+        }
+
+        if (inMemoryProductIndex.isReady()) {
+            return inMemoryProductIndex.search(query, operator, page, size);
+        }
+
+        return productRepository.searchActiveSummaries(Pattern.quote(query), PageRequest.of(page, size)).stream()
+            .map(ProductSummary::from)
+            .toList();
+    }
+
+    private List<ProductSummary> loadSummariesInOrder(List<String> ids) {
+        Map<String, Product> productsById = productRepository.findActiveByIds(ids, ProductSummary.FIELDS).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return ids.stream()
+            .map(productsById::get)
+            .filter(Objects::nonNull)
+            .map(ProductSummary::from)
             .toList();
     }
 
     @Transactional
     public Review addReview(String productId, Review review) {
-        Product product = getProduct(productId);
         validateReview(review);
         
         review.setId(UUID.randomUUID().toString());
@@ -100,13 +199,23 @@ public class ProductService {
         review.setCreatedAt(LocalDateTime.now());
         review.setUpdatedAt(LocalDateTime.now());
         
+        // Only the rating aggregate lives on the product; the review goes to its own collection.
+        // The review is written first so the aggregate never counts a review that does not exist.
         Review savedReview = reviewRepository.save(review);
+        Update update = new Update()
+            .inc("rating.count", 1)
+            .inc("rating.sum", review.getRating())
+            .inc("rating.histogram." + review.getRating(), 1)
+            .set("updatedAt", LocalDateTime.now())
+            .inc("version", 1);
+        if (productRepository.updateActive(productId, null, update, "review-add") == null) {
+            reviewRepository.deleteById(savedReview.getId());
+            throw new ResourceNotFoundException("Product not found or inactive");
+        }
         
-        product.setUpdatedAt(LocalDateTime.now());
-        product.getReviews().add(savedReview);
-        productRepository.save(product);
-        
-        redisService.delete("product:" + productId);
+        productCache.evict(productId);
+        productListingCache.invalidate();
+        productEventPublisher.publish(productId, ProductChangeType.REVIEW_ADDED);
         
         log.info("Added review {} to product {}", savedReview.getId(), productId);
         return savedReview;
@@ -118,53 +227,100 @@ public class ProductService {
             throw new IllegalArgumentException("Quantity must be non-negative");
         }
         
-        Product product = getProduct(id);
-        
-        if (product.getStockQuantity() < quantity) {
+        log.info("Updating stock for product {}", id);
+        // Stock served from Redis is changed there, or reservations would keep selling what this
+        // write takes away; Mongo catches up on the next inventory flush
+        Long trackedStock = inventoryService.adjustIfTracked(id, -quantity);
+        if (trackedStock != null) {
+            Product product = findActiveProduct(id);
+            product.setStockQuantity(trackedStock.intValue());
+            return product;
+        }
+        Product updatedProduct = productRepository.decrementStock(id, quantity);
+        if (updatedProduct == null) {
+            // Nothing matched: tell a missing or inactive product apart from a stock shortfall
+            Product product = findActiveProduct(id);
             log.warn("Insufficient stock for product {}. Current stock: {}", id, product.getStockQuantity());
             throw new IllegalArgumentException("Insufficient stock");
         }
         
-        log.info("Updating stock for product {}", id);
-        product.setStockQuantity(product.getStockQuantity() - quantity);
-        product.setUpdatedAt(LocalDateTime.now());
-        
-        Product updatedProduct = productRepository.save(product);
-        redisService.delete("product:" + id);
+        productCache.evict(id);
+        productEventPublisher.publish(id, ProductChangeType.STOCK_UPDATED);
         return updatedProduct;
     }
 
     @Transactional
     public Product updateProduct(String id, Product updatedProduct) {
-        Product product = getProduct(id);
+        Product product = findActiveProduct(id);
         
-        if (updatedProduct.getName() != null && !updatedProduct.getName().isEmpty()) {
-            product.setName(updatedProduct.getName());
+        // Only fields that actually change are written
+        Update update = new Update();
+        if (updatedProduct.getName() != null && !updatedProduct.getName().isEmpty()
+                && !updatedProduct.getName().equals(product.getName())) {
+            update.set("name", updatedProduct.getName());
         }
         
-        if (updatedProduct.getDescription() != null && !updatedProduct.getDescription().isEmpty()) {
-            product.setDescription(updatedProduct.getDescription());
+        if (updatedProduct.getDescription() != null && !updatedProduct.getDescription().isEmpty()
+                && !updatedProduct.getDescription().equals(product.getDescription())) {
+            update.set("description", updatedProduct.getDescription());
         }
         
-        if (updatedProduct.getPrice() != null) {
-            product.setPrice(updatedProduct.getPrice());
+        if (updatedProduct.getPrice() != null
+                && (product.getPrice() == null || updatedProduct.getPrice().compareTo(product.getPrice()) != 0)) {
+            update.set("price", updatedProduct.getPrice());
         }
         
-        if (updatedProduct.getStockQuantity() >= 0) {
-            product.setStockQuantity(updatedProduct.getStockQuantity());
+        // Tracked stock is set through the inventory engine once the other fields are written
+        boolean setTrackedStock = false;
+        if (updatedProduct.getStockQuantity() >= 0 && updatedProduct.getStockQuantity() != product.getStockQuantity()) {
+            if (inventoryService.isTracked(id)) {
+                setTrackedStock = true;
+            } else {
+                update.set("stockQuantity", updatedProduct.getStockQuantity());
+            }
         }
         
-        if (updatedProduct.getCategory() != null && !updatedProduct.getCategory().isEmpty()) {
-            product.setCategory(updatedProduct.getCategory());
+        if (updatedProduct.getCategory() != null && !updatedProduct.getCategory().isEmpty()
+                && !updatedProduct.getCategory().equals(product.getCategory())) {
+            update.set("category", updatedProduct.getCategory());
         }
 
-        if (updatedProduct.getImageUrl() != null && !updatedProduct.getImageUrl().isEmpty()) {
-            product.setImageUrl(updatedProduct.getImageUrl());
+        if (updatedProduct.getImageUrl() != null && !updatedProduct.getImageUrl().isEmpty()
+                && !updatedProduct.getImageUrl().equals(product.getImageUrl())) {
+            update.set("imageUrl", updatedProduct.getImageUrl());
         }
         
-        product.setUpdatedAt(LocalDateTime.now());
-        Product savedProduct = productRepository.save(product);
-        redisService.delete("product:" + id);
+        if (update.getUpdateObject().isEmpty() && !setTrackedStock) {
+            log.debug("Update of product {} changes nothing", id);
+            return product;
+        }
+        
+        Product savedProduct = product;
+        if (!update.getUpdateObject().isEmpty()) {
+            update.set("updatedAt", LocalDateTime.now()).inc("version", 1);
+            // A client-supplied version makes the update conditional on nobody else having written since
+            savedProduct = productRepository.updateActive(id, updatedProduct.getVersion(), update, "update");
+            if (savedProduct == null) {
+                throw new ResourceNotFoundException("Product not found or inactive");
+            }
+        }
+        if (setTrackedStock) {
+            Long trackedStock = inventoryService.setIfTracked(id, updatedProduct.getStockQuantity());
+            if (trackedStock == null) {
+                // Stopped being tracked in the meantime; Mongo is authoritative again
+                Update stock = new Update().set("stockQuantity", updatedProduct.getStockQuantity())
+                    .set("updatedAt", LocalDateTime.now()).inc("version", 1);
+                savedProduct = productRepository.updateActive(id, null, stock, "update");
+                if (savedProduct == null) {
+                    throw new ResourceNotFoundException("Product not found or inactive");
+                }
+            } else {
+                savedProduct.setStockQuantity(trackedStock.intValue());
+            }
+        }
+        productCache.evict(id);
+        productListingCache.invalidate();
+        productEventPublisher.publish(id, ProductChangeType.UPDATED);
         
         log.info("Updated product {}", id);
         return savedProduct;
@@ -172,7 +328,6 @@ public class ProductService {
 
     @Transactional
     public Review updateReview(String productId, String reviewId, Review updatedReview) {
-        Product product = getProduct(productId);
         Review review = reviewRepository.findById(reviewId)
             .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
             
@@ -184,7 +339,11 @@ public class ProductService {
             review.setUserId(updatedReview.getUserId());
         }
         
+        int previousRating = review.getRating();
         if (updatedReview.getRating() > 0) {
+            if (updatedReview.getRating() > 5) {
+                throw new IllegalArgumentException("Review rating must be between 1 and 5");
+            }
             review.setRating(updatedReview.getRating());
         }
         
@@ -192,32 +351,68 @@ public class ProductService {
             review.setComment(updatedReview.getComment());
         }
         
+        if (!productRepository.existsByIdAndActive(productId, true)) {
+            throw new ResourceNotFoundException("Product not found or inactive");
+        }
         review.setUpdatedAt(LocalDateTime.now());
-        Review savedReview = reviewRepository.save(review);
-        redisService.delete("product:" + productId);
-        return savedReview;
+        // Conditional on the rating read above, so the aggregate is moved by exactly this change
+        if (!reviewRepository.updateIfRatingUnchanged(review, previousRating)) {
+            throw new OptimisticLockingFailureException("Review " + reviewId + " was modified concurrently");
+        }
+        
+        if (review.getRating() != previousRating) {
+            Update update = new Update()
+                .inc("rating.sum", review.getRating() - previousRating)
+                .inc("rating.histogram." + previousRating, -1)
+                .inc("rating.histogram." + review.getRating(), 1)
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1);
+            productRepository.updateActive(productId, null, update, "review-update");
+            productCache.evict(productId);
+            productListingCache.invalidate();
+        }
+        return review;
+    }
+
+    public List<Review> getReviews(String productId, int page, int size) {
+        validatePage(page, size);
+        if (!productRepository.existsByIdAndActive(productId, true)) {
+            throw new ResourceNotFoundException("Product not found or inactive");
+        }
+        return reviewRepository.findByProductIdOrderByCreatedAtDesc(productId, PageRequest.of(page, size));
     }
 
     @Transactional
     public void deleteProduct(String id) {
-        Product product = getProduct(id);
-        if (product == null) {
+        // Soft delete by setting active to false
+        Update update = new Update()
+            .set("active", false)
+            .set("updatedAt", LocalDateTime.now())
+            .inc("version", 1);
+        if (productRepository.updateActive(id, null, update, "delete") == null) {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
         
-        // Soft delete by setting active to false
-        product.setActive(false);
-        product.setUpdatedAt(LocalDateTime.now());
-        productRepository.save(product);
-        
-        // Remove from cache if using caching
-        String cacheKey = "product:" + id;
-        redisService.delete(cacheKey);
+        productCache.evict(id);
+        productListingCache.invalidate();
+        productEventPublisher.publish(id, ProductChangeType.DELETED);
         
         log.info("Deleted product with ID: {}", id);
     }
 
-    private void validateProduct(Product product) {
+    // Write paths work on the stored document, never on the shared cached instance
+    private Product findActiveProduct(String id) {
+        Product product = productRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+            
+        if (!product.isActive()) {
+            log.warn("Product {} is not active", id);
+            throw new ResourceNotFoundException("Product not found or inactive");
+        }
+        return product;
+    }
+
+    void validateProduct(Product product) {
         if (product == null) {
             throw new IllegalArgumentException("Product cannot be null");
         }
@@ -238,6 +433,18 @@ public class ProductService {
         }
     }
 
+    private void validatePage(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page number must be non-negative");
+        }
+        if (size < 1 || size > AppConstants.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + AppConstants.MAX_PAGE_SIZE);
+        }
+        if ((long) (page + 1) * size > AppConstants.MAX_SEARCH_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Search results are limited to the first " + AppConstants.MAX_SEARCH_RESULT_WINDOW + " matches");
+        }
+    }
+
     private void validateReview(Review review) {
         if (review == null) {
             throw new IllegalArgumentException("Review cannot be null");
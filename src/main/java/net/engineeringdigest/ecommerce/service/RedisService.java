@@ -3,9 +3,18 @@ package net.engineeringdigest.ecommerce.service;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -25,6 +34,18 @@ public class RedisService {
         }
     }
 
+    public List<Object> multiGet(List<String> keys) {
+        try {
+            log.debug("Getting {} values from Redis", keys.size());
+            List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+            // null when called inside a Redis transaction or pipeline
+            return values != null ? values : Collections.nCopies(keys.size(), null);
+        } catch (Exception e) {
+            log.error("Error getting values from Redis for keys: {}", keys, e);
+            return Collections.nCopies(keys.size(), null);
+        }
+    }
+
     public void set(String key, Object value) {
         try {
             log.debug("Setting value in Redis for key: {}", key);
@@ -43,6 +64,46 @@ public class RedisService {
         }
     }
 
+    public void setAll(Map<String, ?> values) {
+        setAll(values, DEFAULT_EXPIRE_TIME, TimeUnit.SECONDS);
+    }
+
+    // Writes every entry with its expiry in a single pipelined round trip
+    public void setAll(Map<String, ?> values, long timeout, TimeUnit unit) {
+        try {
+            log.debug("Setting {} values in Redis with timeout: {} {}", values.size(), timeout, unit);
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    values.forEach((key, value) -> ops.opsForValue().set(key, value, timeout, unit));
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.error("Error setting values in Redis for keys: {}", values.keySet(), e);
+        }
+    }
+
+    // Encodes a value the way set() stores it, for scripts that write values themselves
+    @SuppressWarnings("unchecked")
+    public byte[] encode(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+
+    // Runs a script whose arguments are already encoded, e.g. with encode()
+    public Long execute(RedisScript<Long> script, List<String> keys, List<byte[]> args) {
+        try {
+            log.debug("Running script on {} keys in Redis", keys.size());
+            return redisTemplate.execute(script, RedisSerializer.byteArray(), new GenericToStringSerializer<>(Long.class),
+                keys, args.toArray());
+        } catch (Exception e) {
+            log.error("Error running script in Redis for keys: {}", keys, e);
+            return null;
+        }
+    }
+
     public void delete(String key) {
         try {
             log.debug("Deleting value from Redis for key: {}", key);
@@ -51,4 +112,13 @@ public class RedisService {
             log.error("Error deleting value from Redis for key: {}", key, e);
         }
     }
+
+    public void delete(Collection<String> keys) {
+        try {
+            log.debug("Deleting values from Redis for keys: {}", keys);
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            log.error("Error deleting values from Redis for keys: {}", keys, e);
+        }
+    }
 }
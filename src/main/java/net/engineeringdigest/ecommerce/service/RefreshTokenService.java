@@ -0,0 +1,159 @@
+package net.engineeringdigest.ecommerce.service;
+
+import net.engineeringdigest.ecommerce.dto.LoginResponse;
+import net.engineeringdigest.ecommerce.entity.RefreshToken;
+import net.engineeringdigest.ecommerce.entity.RevokedSession;
+import net.engineeringdigest.ecommerce.repository.RefreshTokenRepository;
+import net.engineeringdigest.ecommerce.security.JwtTokenService;
+import net.engineeringdigest.ecommerce.security.TokenRevocationList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Issues short-lived access tokens with opaque, single-use refresh tokens. Each login starts a
+ * token family; refreshing consumes the presented token and issues the next one in the family.
+ * Presenting a token that was already used means it was copied, so the whole family is
+ * revoked, which also rejects every access token issued to that session.
+ *
+ * A revoked family is recorded in Mongo for as long as its refresh tokens could live, and a
+ * newly issued token is checked against that record after it is stored, so a refresh racing
+ * with a revocation cannot leave a live token behind in the family.
+ */
+@Service
+public class RefreshTokenService {
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MongoTemplate mongoTemplate;
+    private final JwtTokenService jwtTokenService;
+    private final TokenRevocationList revocationList;
+    private final UserDetailsService userDetailsService;
+
+    @Value("${app.jwt.refresh-expiration:P14D}")
+    private Duration refreshExpiration;
+
+    @Value("${app.jwt.expiration}")
+    private long accessExpirationMs;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               MongoTemplate mongoTemplate,
+                               JwtTokenService jwtTokenService,
+                               TokenRevocationList revocationList,
+                               UserDetailsService userDetailsService) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.jwtTokenService = jwtTokenService;
+        this.revocationList = revocationList;
+        this.userDetailsService = userDetailsService;
+    }
+
+    public LoginResponse login(UserDetails user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    public LoginResponse refresh(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            throw new BadCredentialsException("Refresh token is required");
+        }
+        String tokenHash = hash(refreshToken);
+        Date now = new Date();
+
+        // Consuming the token is atomic, so two concurrent refreshes cannot both succeed
+        RefreshToken current = mongoTemplate.findAndModify(
+            Query.query(where("tokenHash").is(tokenHash).and("used").is(false).and("expirationDate").gt(now)),
+            new Update().set("used", true),
+            FindAndModifyOptions.options().returnNew(true),
+            RefreshToken.class);
+
+        if (current == null) {
+            Optional<RefreshToken> existing = refreshTokenRepository.findByTokenHash(tokenHash);
+            if (existing.isPresent() && existing.get().isUsed()) {
+                log.warn("Refresh token reuse detected for user {}, revoking session {}",
+                    existing.get().getUsername(), existing.get().getFamilyId());
+                revokeSession(existing.get().getFamilyId());
+            }
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(current.getUsername());
+        } catch (UsernameNotFoundException e) {
+            revokeSession(current.getFamilyId());
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return issue(user, current.getFamilyId());
+    }
+
+    // Ends a login session: its refresh tokens are deleted and its access tokens rejected
+    public void revokeSession(String sessionId) {
+        long now = System.currentTimeMillis();
+        // Recorded before the delete: a token saved after the delete is caught by the check in issue
+        mongoTemplate.save(RevokedSession.builder()
+            .id(sessionId)
+            .revokedAt(new Date(now))
+            .expirationDate(new Date(now + refreshExpiration.toMillis()))
+            .build());
+        revocationList.revoke(sessionId, now + accessExpirationMs);
+        refreshTokenRepository.deleteByFamilyId(sessionId);
+        log.info("Revoked session {}", sessionId);
+    }
+
+    private LoginResponse issue(UserDetails user, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        long now = System.currentTimeMillis();
+        RefreshToken saved = refreshTokenRepository.save(RefreshToken.builder()
+            .tokenHash(hash(refreshToken))
+            .username(user.getUsername())
+            .familyId(familyId)
+            .used(false)
+            .createdAt(new Date(now))
+            .expirationDate(new Date(now + refreshExpiration.toMillis()))
+            .build());
+        if (mongoTemplate.exists(Query.query(where("_id").is(familyId)), RevokedSession.class)) {
+            refreshTokenRepository.deleteById(saved.getId());
+            log.warn("Refused to extend revoked session {} for user {}", familyId, user.getUsername());
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        String accessToken = jwtTokenService.generateToken(
+            Map.of(JwtTokenService.SESSION_ID_CLAIM, familyId), user);
+        return new LoginResponse(accessToken, user.getUsername(), refreshToken);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
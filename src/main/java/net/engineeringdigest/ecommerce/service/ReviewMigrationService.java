@@ -0,0 +1,160 @@
+package net.engineeringdigest.ecommerce.service;
+
+import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.entity.RatingSummary;
+import net.engineeringdigest.ecommerce.entity.Review;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * One-off migration for products that still embed a {@code reviews} list: derives the rating
+ * summary from the reviews collection and drops the embedded list. Only documents that still
+ * have the field are touched, so it is safe to run on every start.
+ *
+ * Reviews added while a batch is migrating also bump {@code rating.count} on the product, so
+ * the write only applies if that count is unchanged since before the aggregation; products
+ * that moved are aggregated again.
+ */
+@Service
+public class ReviewMigrationService {
+    private static final Logger log = LoggerFactory.getLogger(ReviewMigrationService.class);
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final ProductListingCache productListingCache;
+
+    @Value("${app.migration.reviews.batch-size:500}")
+    private int batchSize;
+
+    public ReviewMigrationService(MongoTemplate mongoTemplate, ProductCache productCache,
+                                  ProductListingCache productListingCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.productListingCache = productListingCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        Thread migration = new Thread(this::run, "review-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+
+    private void run() {
+        try {
+            Query pending = Query.query(where("reviews").exists(true));
+            pending.fields().include("_id");
+            long migrated = 0;
+            List<String> batch = new ArrayList<>(batchSize);
+            try (Stream<Document> products = mongoTemplate.stream(pending, Document.class, mongoTemplate.getCollectionName(Product.class))) {
+                for (Document product : (Iterable<Document>) products::iterator) {
+                    batch.add(product.get("_id").toString());
+                    if (batch.size() >= batchSize) {
+                        migrated += migrateBatch(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                migrated += migrateBatch(batch);
+            }
+            if (migrated > 0) {
+                productListingCache.invalidate();
+                log.info("Moved embedded reviews out of {} products", migrated);
+            }
+        } catch (Exception e) {
+            log.error("Review migration failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private int migrateBatch(List<String> productIds) {
+        int migrated = 0;
+        List<String> remaining = productIds;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS && !remaining.isEmpty(); attempt++) {
+            migrated += migrateOnce(remaining);
+            remaining = stillPending(remaining);
+        }
+        if (!remaining.isEmpty()) {
+            log.warn("{} products kept receiving reviews during migration; they are retried on the next start",
+                remaining.size());
+        }
+        productCache.evictAll(productIds);
+        return migrated;
+    }
+
+    private int migrateOnce(List<String> productIds) {
+        // Read before aggregating: a review that lands after this read changes the count and
+        // makes the conditional write below miss
+        Map<String, Number> countsBefore = new HashMap<>();
+        Query current = Query.query(where("_id").in(productIds));
+        current.fields().include("rating.count");
+        for (Document product : mongoTemplate.find(current, Document.class, mongoTemplate.getCollectionName(Product.class))) {
+            Document rating = product.get("rating", Document.class);
+            if (rating != null && rating.get("count") instanceof Number count) {
+                countsBefore.put(product.get("_id").toString(), count);
+            }
+        }
+
+        // One grouped aggregation per batch over the productId index
+        Aggregation counts = Aggregation.newAggregation(
+            Aggregation.match(where("productId").in(productIds)),
+            Aggregation.group("productId", "rating").count().as("count"));
+        Map<String, RatingSummary> summaries = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(counts, Review.class, Document.class).getMappedResults()) {
+            Document key = row.get("_id", Document.class);
+            String productId = key.getString("productId");
+            int rating = ((Number) key.get("rating")).intValue();
+            long count = ((Number) row.get("count")).longValue();
+            RatingSummary summary = summaries.computeIfAbsent(productId, id -> new RatingSummary());
+            summary.setCount(summary.getCount() + count);
+            summary.setSum(summary.getSum() + rating * count);
+            summary.getHistogram().merge(String.valueOf(rating), count, Long::sum);
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (String productId : productIds) {
+            Number countBefore = countsBefore.get(productId);
+            Criteria criteria = where("_id").is(productId).and("reviews").exists(true);
+            criteria = countBefore != null
+                ? criteria.and("rating.count").is(countBefore)
+                : criteria.and("rating.count").exists(false);
+            bulk.updateOne(
+                Query.query(criteria),
+                new Update()
+                    .set("rating", summaries.getOrDefault(productId, new RatingSummary()))
+                    .unset("reviews")
+                    .inc("version", 1));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    private List<String> stillPending(List<String> productIds) {
+        Query query = Query.query(where("_id").in(productIds).and("reviews").exists(true));
+        query.fields().include("_id");
+        List<String> pending = new ArrayList<>();
+        for (Document product : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Product.class))) {
+            pending.add(product.get("_id").toString());
+        }
+        return pending;
+    }
+}
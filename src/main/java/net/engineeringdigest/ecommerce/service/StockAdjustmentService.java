@@ -0,0 +1,285 @@
+package net.engineeringdigest.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import net.engineeringdigest.ecommerce.dto.BulkStockResponse;
+import net.engineeringdigest.ecommerce.dto.StockAdjustment;
+import net.engineeringdigest.ecommerce.dto.StockAdjustmentResult;
+import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.enums.ProductChangeType;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Applies newline-delimited stock corrections in unordered bulk writes. Each batch is checked
+ * against one snapshot query first so that every line gets its own result; the update filters
+ * still guard against missing products and negative stock at write time. Every update also
+ * stamps the product with the batch id, so when fewer updates match than were sent the lines
+ * that did apply can be told apart from the ones that lost a race. Products whose stock is
+ * served from Redis are adjusted through the inventory engine instead, so that corrections are
+ * checked against open reservations.
+ */
+@Service
+public class StockAdjustmentService {
+    private static final Logger log = LoggerFactory.getLogger(StockAdjustmentService.class);
+
+    static final String UPDATED = "UPDATED";
+    static final String NOT_FOUND = "NOT_FOUND";
+    static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+    static final String INVALID = "INVALID";
+    static final String CONFLICT = "CONFLICT";
+    static final String FAILED = "FAILED";
+    private static final String BATCH_FIELD = "stockAdjustmentBatch";
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProductCache productCache;
+    private final ProductEventPublisher productEventPublisher;
+    private final InventoryService inventoryService;
+
+    @Value("${app.stock.bulk.batch-size:1000}")
+    private int batchSize;
+
+    public StockAdjustmentService(MongoTemplate mongoTemplate,
+                                  ObjectMapper objectMapper,
+                                  ProductCache productCache,
+                                  ProductEventPublisher productEventPublisher,
+                                  InventoryService inventoryService) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.productCache = productCache;
+        this.productEventPublisher = productEventPublisher;
+        this.inventoryService = inventoryService;
+    }
+
+    public BulkStockResponse apply(InputStream input) throws IOException {
+        List<StockAdjustmentResult> results = new ArrayList<>();
+        // Keyed by product id: a repeated id starts a new batch, because an unordered bulk
+        // write does not guarantee the order of two updates to the same document
+        Map<String, Line> batch = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String text;
+        int lineNumber = 0;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank()) {
+                continue;
+            }
+            Line line;
+            try {
+                line = parse(lineNumber, text);
+            } catch (IllegalArgumentException e) {
+                results.add(new StockAdjustmentResult(lineNumber, null, INVALID, e.getMessage()));
+                continue;
+            }
+            if (batch.containsKey(line.adjustment.getProductId()) || batch.size() >= batchSize) {
+                results.addAll(execute(batch.values()));
+                batch.clear();
+            }
+            batch.put(line.adjustment.getProductId(), line);
+        }
+        if (!batch.isEmpty()) {
+            results.addAll(execute(batch.values()));
+        }
+
+        results.sort((a, b) -> Integer.compare(a.getLine(), b.getLine()));
+        int updated = (int) results.stream().filter(result -> UPDATED.equals(result.getStatus())).count();
+        log.info("Bulk stock adjustment: {} lines, {} updated, {} rejected", results.size(), updated, results.size() - updated);
+        return new BulkStockResponse(results.size(), updated, results.size() - updated, results);
+    }
+
+    // Returns false when the product stopped being tracked, leaving the line to the bulk write
+    private boolean applyTracked(Line line, List<StockAdjustmentResult> results) {
+        StockAdjustment adjustment = line.adjustment;
+        Long onHand;
+        try {
+            onHand = adjustment.getQuantity() != null
+                ? inventoryService.setIfTracked(adjustment.getProductId(), adjustment.getQuantity())
+                : inventoryService.adjustIfTracked(adjustment.getProductId(), adjustment.getDelta());
+        } catch (IllegalArgumentException e) {
+            results.add(line.result(INSUFFICIENT_STOCK, "Not enough unreserved stock"));
+            return true;
+        }
+        if (onHand == null) {
+            return false;
+        }
+        results.add(line.result(UPDATED, null));
+        return true;
+    }
+
+    private Line parse(int lineNumber, String text) {
+        StockAdjustment adjustment;
+        try {
+            adjustment = objectMapper.readValue(text, StockAdjustment.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+        if (adjustment.getProductId() == null || adjustment.getProductId().isBlank()) {
+            throw new IllegalArgumentException("productId is required");
+        }
+        if ((adjustment.getDelta() == null) == (adjustment.getQuantity() == null)) {
+            throw new IllegalArgumentException("Exactly one of delta or quantity is required");
+        }
+        if (adjustment.getQuantity() != null && adjustment.getQuantity() < 0) {
+            throw new IllegalArgumentException("Quantity must be non-negative");
+        }
+        return new Line(lineNumber, adjustment);
+    }
+
+    private List<StockAdjustmentResult> execute(Iterable<Line> lines) {
+        List<StockAdjustmentResult> results = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        lines.forEach(line -> ids.add(line.adjustment.getProductId()));
+        Map<String, Integer> stock = snapshot(ids);
+        Set<String> tracked = inventoryService.trackedAmong(stock.keySet());
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        List<Line> queued = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        String batchId = UUID.randomUUID().toString();
+        for (Line line : lines) {
+            StockAdjustment adjustment = line.adjustment;
+            Integer current = stock.get(adjustment.getProductId());
+            if (current == null) {
+                results.add(line.result(NOT_FOUND, "Product not found or inactive"));
+                continue;
+            }
+            if (tracked.contains(adjustment.getProductId()) && applyTracked(line, results)) {
+                continue;
+            }
+            Criteria criteria = where("_id").is(adjustment.getProductId()).and("active").is(true);
+            Update update = new Update().set("updatedAt", now).inc("version", 1).set(BATCH_FIELD, batchId);
+            if (adjustment.getQuantity() != null) {
+                update.set("stockQuantity", adjustment.getQuantity());
+            } else {
+                if (current + adjustment.getDelta() < 0) {
+                    results.add(line.result(INSUFFICIENT_STOCK, "Current stock is " + current));
+                    continue;
+                }
+                if (adjustment.getDelta() < 0) {
+                    criteria.and("stockQuantity").gte(-adjustment.getDelta());
+                }
+                update.inc("stockQuantity", adjustment.getDelta());
+            }
+            bulk.updateOne(Query.query(criteria), update);
+            queued.add(line);
+        }
+        if (queued.isEmpty()) {
+            return results;
+        }
+
+        Map<Integer, String> errors = new HashMap<>();
+        int matched;
+        try {
+            BulkWriteResult result = bulk.execute();
+            matched = result.getMatchedCount();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+            matched = e.getResult().getMatchedCount();
+        }
+
+        // A shortfall means a product changed between the snapshot and the write; the write
+        // result does not say which, so the batch stamp is read back to find the lines that applied
+        Set<String> applied = null;
+        Map<String, Integer> current = Map.of();
+        if (matched < queued.size() - errors.size()) {
+            log.warn("Bulk stock batch matched {} of {} updates", matched, queued.size() - errors.size());
+            List<String> queuedIds = queued.stream().map(line -> line.adjustment.getProductId()).toList();
+            applied = appliedIds(queuedIds, batchId);
+            current = snapshot(queuedIds);
+        }
+        List<String> changed = new ArrayList<>();
+        for (int i = 0; i < queued.size(); i++) {
+            Line line = queued.get(i);
+            String productId = line.adjustment.getProductId();
+            if (errors.containsKey(i)) {
+                results.add(line.result(FAILED, errors.get(i)));
+            } else if (applied == null || applied.contains(productId)) {
+                results.add(line.result(UPDATED, null));
+                changed.add(productId);
+            } else {
+                results.add(notApplied(line, current.get(productId)));
+            }
+        }
+
+        productCache.evictAll(changed);
+        changed.forEach(id -> productEventPublisher.publish(id, ProductChangeType.STOCK_UPDATED));
+        return results;
+    }
+
+    // Ids still carrying this batch's stamp; a later batch touching the same product in the
+    // meantime replaces the stamp, which reports that line as a conflict rather than a success
+    private Set<String> appliedIds(List<String> ids, String batchId) {
+        Query query = Query.query(where("_id").in(ids).and(BATCH_FIELD).is(batchId));
+        query.fields().include("_id");
+        Set<String> applied = new HashSet<>();
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Product.class))) {
+            applied.add(document.get("_id").toString());
+        }
+        return applied;
+    }
+
+    private static StockAdjustmentResult notApplied(Line line, Integer current) {
+        if (current == null) {
+            return line.result(NOT_FOUND, "Product not found or inactive");
+        }
+        Integer delta = line.adjustment.getDelta();
+        if (delta != null && current + delta < 0) {
+            return line.result(INSUFFICIENT_STOCK, "Current stock is " + current);
+        }
+        return line.result(CONFLICT, "Product changed concurrently; verify stock before retrying");
+    }
+
+    private Map<String, Integer> snapshot(List<String> ids) {
+        Query query = Query.query(where("_id").in(ids).and("active").is(true));
+        query.fields().include("stockQuantity");
+        Map<String, Integer> stock = new HashMap<>();
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Product.class))) {
+            stock.put(document.get("_id").toString(), ((Number) document.getOrDefault("stockQuantity", 0)).intValue());
+        }
+        return stock;
+    }
+
+    private static final class Line {
+        private final int number;
+        private final StockAdjustment adjustment;
+
+        private Line(int number, StockAdjustment adjustment) {
+            this.number = number;
+            this.adjustment = adjustment;
+        }
+
+        private StockAdjustmentResult result(String status, String message) {
+            return new StockAdjustmentResult(number, adjustment.getProductId(), status, message);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import net.engineeringdigest.ecommerce.dto.SignupRequest;
 import net.engineeringdigest.ecommerce.entity.User;
 import net.engineeringdigest.ecommerce.repository.UserRepository;
+import net.engineeringdigest.ecommerce.security.PrincipalCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -23,6 +24,7 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -65,6 +67,8 @@ public class UserService implements UserDetailsService {
         user.setLastName(userDetails.getLastName());
         
         User updatedUser = userRepository.save(user);
+        // Cached principals carry the user's authorities; drop them so the next request reloads
+        principalCache.invalidate(updatedUser.getUsername());
         log.info("Successfully updated user: {}", updatedUser.getUsername());
         return updatedUser;
     }
@@ -73,6 +77,7 @@ public class UserService implements UserDetailsService {
         log.debug("Deleting user with id: {}", id);
         User user = getUserById(id);
         userRepository.delete(user);
+        principalCache.invalidate(user.getUsername());
         log.info("Successfully deleted user with id: {}", id);
     }
 
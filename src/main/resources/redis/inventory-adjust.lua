@@ -0,0 +1,26 @@
+-- KEYS: stock, pending deltas, reserved-per-product, tracked products
+-- ARGV: product id, 'inc' or 'set', amount
+-- A stock correction for a product whose stock is served from Redis: the available counter
+-- moves at once and the change is queued as a delta for the next flush to Mongo.
+-- Returns {status, available, reserved}: status 0 = applied, 1 = not tracked (the caller
+-- writes Mongo itself), 2 = rejected because available stock would go negative
+if redis.call('SISMEMBER', KEYS[4], ARGV[1]) == 0 then
+    return {1, 0, 0}
+end
+local available = redis.call('GET', KEYS[1])
+if not available then
+    return {1, 0, 0}
+end
+available = tonumber(available)
+local reserved = tonumber(redis.call('HGET', KEYS[3], ARGV[1]) or 0)
+local delta = tonumber(ARGV[3])
+if ARGV[2] == 'set' then
+    -- Stock on hand is Mongo stock plus unflushed deltas, which is available plus reserved
+    delta = delta - (available + reserved)
+end
+if available + delta < 0 then
+    return {2, available, reserved}
+end
+redis.call('INCRBY', KEYS[1], delta)
+redis.call('HINCRBY', KEYS[2], ARGV[1], delta)
+return {0, available + delta, reserved}
@@ -0,0 +1,11 @@
+-- KEYS: reservation, reservation expiry index, reserved-per-product, pending deltas
+-- ARGV: product id, reservation id
+local quantity = redis.call('HGET', KEYS[1], 'quantity')
+if not quantity then
+    return -1
+end
+redis.call('DEL', KEYS[1])
+redis.call('ZREM', KEYS[2], ARGV[2])
+redis.call('HINCRBY', KEYS[3], ARGV[1], -quantity)
+redis.call('HINCRBY', KEYS[4], ARGV[1], -quantity)
+return tonumber(quantity)
@@ -0,0 +1,19 @@
+-- KEYS: pending deltas, deltas being flushed, id of the batch being flushed
+-- ARGV: id to give a new batch
+-- A batch left over from a failed flush is returned again, with its original id, before new
+-- deltas are taken. Returns the batch id followed by the HGETALL of the batch.
+if redis.call('EXISTS', KEYS[2]) == 0 then
+    if redis.call('EXISTS', KEYS[1]) == 0 then
+        return {}
+    end
+    redis.call('RENAME', KEYS[1], KEYS[2])
+    redis.call('SET', KEYS[3], ARGV[1])
+end
+local id = redis.call('GET', KEYS[3])
+if not id then
+    id = ARGV[1]
+    redis.call('SET', KEYS[3], id)
+end
+local batch = redis.call('HGETALL', KEYS[2])
+table.insert(batch, 1, id)
+return batch
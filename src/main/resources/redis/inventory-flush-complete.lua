@@ -0,0 +1,8 @@
+-- KEYS: deltas being flushed, id of the batch being flushed
+-- ARGV: id of the batch that was written to Mongo
+-- Fenced on the batch id, so a flush that outlived its lock cannot drop a newer batch
+if redis.call('GET', KEYS[2]) ~= ARGV[1] then
+    return 0
+end
+redis.call('DEL', KEYS[1], KEYS[2])
+return 1
@@ -0,0 +1,13 @@
+-- KEYS: stock, reservation, reservation expiry index, reserved-per-product
+-- ARGV: product id, reservation id
+local quantity = redis.call('HGET', KEYS[2], 'quantity')
+if not quantity then
+    return -1
+end
+redis.call('DEL', KEYS[2])
+redis.call('ZREM', KEYS[3], ARGV[2])
+redis.call('HINCRBY', KEYS[4], ARGV[1], -quantity)
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('INCRBY', KEYS[1], quantity)
+end
+return tonumber(quantity)
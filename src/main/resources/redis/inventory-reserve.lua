@@ -0,0 +1,15 @@
+-- KEYS: stock, reservation, reservation expiry index, reserved-per-product
+-- ARGV: product id, reservation id, quantity, expires at (epoch millis)
+local stock = redis.call('GET', KEYS[1])
+if not stock then
+    return -2
+end
+local quantity = tonumber(ARGV[3])
+if tonumber(stock) < quantity then
+    return -1
+end
+redis.call('DECRBY', KEYS[1], quantity)
+redis.call('HSET', KEYS[2], 'productId', ARGV[1], 'quantity', quantity)
+redis.call('ZADD', KEYS[3], ARGV[4], ARGV[2])
+redis.call('HINCRBY', KEYS[4], ARGV[1], quantity)
+return tonumber(stock) - quantity
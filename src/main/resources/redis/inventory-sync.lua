@@ -0,0 +1,20 @@
+-- KEYS: stock, pending deltas, deltas being flushed, reserved-per-product, tracked products
+-- ARGV: product id, stock in Mongo, '1' to only initialise a missing counter
+-- Available stock in Redis must equal Mongo stock plus unflushed deltas minus open reservations
+local current = redis.call('GET', KEYS[1])
+if current and ARGV[3] == '1' then
+    return 0
+end
+local expected = tonumber(ARGV[2])
+    + tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or 0)
+    + tonumber(redis.call('HGET', KEYS[3], ARGV[1]) or 0)
+    - tonumber(redis.call('HGET', KEYS[4], ARGV[1]) or 0)
+redis.call('SADD', KEYS[5], ARGV[1])
+if current and tonumber(current) == expected then
+    return 0
+end
+redis.call('SET', KEYS[1], expected)
+if not current then
+    return 0
+end
+return expected - tonumber(current)
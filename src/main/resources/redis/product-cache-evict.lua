@@ -0,0 +1,9 @@
+-- KEYS: value key, missing marker and generation key of each product, in threes
+-- ARGV: how long a generation is kept in ms; it has to outlive the slowest load
+-- Bumping the generation makes any load that started before this eviction skip its write
+for i = 1, #KEYS, 3 do
+    redis.call('DEL', KEYS[i], KEYS[i + 1])
+    redis.call('INCR', KEYS[i + 2])
+    redis.call('PEXPIRE', KEYS[i + 2], ARGV[1])
+end
+return #KEYS / 3
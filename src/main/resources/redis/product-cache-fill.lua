@@ -0,0 +1,15 @@
+-- KEYS: value key and generation key of each product, in pairs
+-- ARGV: per product, in threes: its generation when the load started ('' if none), expiry in ms
+-- and the encoded value
+-- Skips products evicted since their load started, so a slow load cannot put back a value that
+-- an update has already replaced. Returns the number of values written
+local written = 0
+for i = 1, #KEYS, 2 do
+    local n = (i - 1) / 2 * 3
+    local generation = redis.call('GET', KEYS[i + 1]) or ''
+    if generation == ARGV[n + 1] then
+        redis.call('SET', KEYS[i], ARGV[n + 3], 'PX', ARGV[n + 2])
+        written = written + 1
+    end
+end
+return written
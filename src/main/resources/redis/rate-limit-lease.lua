@@ -0,0 +1,40 @@
+-- KEYS: bucket
+-- ARGV: capacity, refill tokens per second, tokens wanted,
+--       unused tokens returned from the caller's expired lease
+-- Returns {tokens granted, millis until a token is available when none were granted}
+-- Refill is timed by the Redis clock so that nodes with skewed clocks agree on it; reading
+-- TIME before a write needs effects replication, which is the default from Redis 5
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+local capacity = tonumber(ARGV[1])
+local rate = tonumber(ARGV[2])
+local wanted = tonumber(ARGV[3])
+local returned = tonumber(ARGV[4] or 0)
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if not tokens then
+    tokens = capacity
+    ts = now
+end
+if now > ts then
+    tokens = math.min(capacity, tokens + (now - ts) * rate / 1000)
+    ts = now
+end
+tokens = math.min(capacity, tokens + returned)
+
+local granted = math.min(wanted, math.floor(tokens))
+tokens = tokens - granted
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', ts)
+-- A full bucket holds no state worth keeping
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate * 1000) + 1000)
+
+local retryAfter = 0
+if granted == 0 then
+    retryAfter = math.ceil((1 - tokens) / rate * 1000)
+end
+return {granted, retryAfter}
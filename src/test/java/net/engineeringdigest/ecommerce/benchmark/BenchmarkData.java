@@ -0,0 +1,58 @@
+package net.engineeringdigest.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.entity.RatingSummary;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shared fixtures for the JMH benchmarks. The product is sized like a typical catalog entry:
+ * a few hundred characters of description and a populated rating summary.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    // Configured like the application's ObjectMapper, which is a plain ObjectMapper so that
+    // RedisValueCodec can copy it with another factory
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    static Product product(int n) {
+        Map<String, Long> histogram = new HashMap<>();
+        histogram.put("1", 3L);
+        histogram.put("2", 5L);
+        histogram.put("3", 21L);
+        histogram.put("4", 88L);
+        histogram.put("5", 141L);
+        return Product.builder()
+            .id(String.format("65a1f0c2e4b0a1b2c3d4%04x", n))
+            .name("Ergonomic Mesh Office Chair " + n)
+            .description("Breathable mesh back with adjustable lumbar support, 4D armrests and a "
+                + "synchronised tilt mechanism that locks in five positions. The seat depth slides "
+                + "by 6 cm and the gas lift is rated for users up to 150 kg. Frame in powder-coated "
+                + "aluminium, casters suitable for hard floors and carpet. Assembly takes about "
+                + "fifteen minutes; all tools are included. Backed by a five year warranty on the "
+                + "frame and mechanism and two years on upholstery and casters.")
+            .price(new BigDecimal("249.90"))
+            .stockQuantity(120)
+            .category("furniture")
+            .imageUrl("https://cdn.example.com/images/products/office-chair-" + n + ".jpg")
+            .active(true)
+            .createdAt(LocalDateTime.of(2024, 3, 1, 9, 30))
+            .updatedAt(LocalDateTime.of(2024, 6, 12, 17, 5, 42))
+            .version(17L)
+            .rating(new RatingSummary(258, 1130, histogram))
+            .build();
+    }
+}
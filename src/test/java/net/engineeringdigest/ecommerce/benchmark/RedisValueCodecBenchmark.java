@@ -0,0 +1,82 @@
+package net.engineeringdigest.ecommerce.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.engineeringdigest.ecommerce.config.RedisValueCodec;
+import net.engineeringdigest.ecommerce.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous GenericJackson2JsonRedisSerializer setup with RedisValueCodec as
+ * Smile and as Smile with LZ4, on one cached product. The encoded size of each is printed
+ * at setup. Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisValueCodecBenchmark {
+
+    @Param({"generic-json", "smile", "smile-lz4"})
+    private String codec;
+
+    private RedisSerializer<Object> serializer;
+    private Product product;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = BenchmarkData.objectMapper();
+        serializer = switch (codec) {
+            case "generic-json" -> {
+                ObjectMapper typed = objectMapper.copy().activateDefaultTyping(
+                    objectMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL,
+                    JsonTypeInfo.As.PROPERTY);
+                yield new GenericJackson2JsonRedisSerializer(typed);
+            }
+            case "smile" -> new RedisValueCodec(objectMapper, "smile", false, 0);
+            // Threshold 0 so the product is compressed whatever its size
+            case "smile-lz4" -> new RedisValueCodec(objectMapper, "smile", true, 0);
+            default -> throw new IllegalArgumentException("Unknown codec: " + codec);
+        };
+        product = BenchmarkData.product(1);
+        encoded = serializer.serialize(product);
+        if (!product.equals(serializer.deserialize(encoded))) {
+            throw new IllegalStateException(codec + " does not round-trip the product");
+        }
+        System.out.printf("%n%s: %d bytes%n", codec, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(product);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RedisValueCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
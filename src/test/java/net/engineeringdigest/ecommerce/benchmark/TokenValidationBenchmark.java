@@ -0,0 +1,90 @@
+package net.engineeringdigest.ecommerce.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.engineeringdigest.ecommerce.security.JwtTokenService;
+import net.engineeringdigest.ecommerce.security.PrincipalCache;
+import net.engineeringdigest.ecommerce.security.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Access tokens validated per second: the shared parser in JwtTokenService, a parser and key
+ * built for every token as the previous JWT helpers did, and a PrincipalCache hit, which is
+ * what the filter does for a token it has already seen. Use {@code -t} to add threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenValidationBenchmark {
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits";
+
+    private JwtTokenService jwtTokenService;
+    private PrincipalCache principalCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenService = new JwtTokenService(SECRET, "current", "", "", Duration.ofHours(1).toMillis());
+        UserDetails user = User.withUsername("benchmark@example.com").password("").roles("USER").build();
+        token = jwtTokenService.generateToken(Map.of(JwtTokenService.SESSION_ID_CLAIM, "session-1"), user);
+
+        principalCache = new PrincipalCache(mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class),
+            new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(5));
+        Claims claims = jwtTokenService.parse(token);
+        principalCache.put(token, new VerifiedToken(user, "session-1"), claims.getExpiration(), principalCache.generation());
+        if (principalCache.get(token) == null) {
+            throw new IllegalStateException("Token was not cached");
+        }
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return jwtTokenService.parse(token);
+    }
+
+    @Benchmark
+    public Claims parserPerToken() {
+        return Jwts.parserBuilder()
+            .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+    }
+
+    @Benchmark
+    public VerifiedToken principalCacheHit() {
+        return principalCache.get(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenValidationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,134 @@
+package net.engineeringdigest.ecommerce.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.engineeringdigest.ecommerce.entity.Product;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers(disabledWithoutDocker = true)
+class DecrementStockConcurrencyTest {
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+    private static final int INITIAL_STOCK = 500;
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:6.0");
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+    private static ProductRepositoryImpl repository;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(mongo.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(client, "stock-test");
+        repository = new ProductRepositoryImpl(mongoTemplate, new SimpleMeterRegistry());
+    }
+
+    @AfterAll
+    static void disconnect() {
+        client.close();
+    }
+
+    @BeforeEach
+    void resetProducts() {
+        mongoTemplate.dropCollection(Product.class);
+    }
+
+    @Test
+    void concurrentSingleUnitDecrementsSellExactlyTheAvailableStock() throws Exception {
+        String id = insertProduct(INITIAL_STOCK);
+        AtomicInteger successes = new AtomicInteger();
+
+        runConcurrently(() -> {
+            if (repository.decrementStock(id, 1) != null) {
+                successes.incrementAndGet();
+            }
+        });
+
+        assertThat(successes).hasValue(INITIAL_STOCK);
+        assertThat(stockOf(id)).isZero();
+    }
+
+    @Test
+    void concurrentMixedDecrementsNeverOversell() throws Exception {
+        String id = insertProduct(INITIAL_STOCK);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger negativeReads = new AtomicInteger();
+
+        runConcurrently(() -> {
+            int quantity = ThreadLocalRandom.current().nextInt(1, 6);
+            Product updated = repository.decrementStock(id, quantity);
+            if (updated != null) {
+                sold.addAndGet(quantity);
+                if (updated.getStockQuantity() < 0) {
+                    negativeReads.incrementAndGet();
+                }
+            }
+        });
+
+        int remaining = stockOf(id);
+        assertThat(negativeReads).hasValue(0);
+        assertThat(remaining).isBetween(0, 4);
+        assertThat(sold.get()).isEqualTo(INITIAL_STOCK - remaining);
+    }
+
+    private void runConcurrently(Runnable attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        attempt.run();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String insertProduct(int stock) {
+        Product product = Product.builder()
+            .name("Stress test product")
+            .price(BigDecimal.TEN)
+            .stockQuantity(stock)
+            .active(true)
+            .version(0L)
+            .build();
+        return mongoTemplate.insert(product).getId();
+    }
+
+    private int stockOf(String id) {
+        return mongoTemplate.findById(id, Product.class).getStockQuantity();
+    }
+}
@@ -0,0 +1,197 @@
+package net.engineeringdigest.ecommerce.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.engineeringdigest.ecommerce.dto.InventoryReservation;
+import net.engineeringdigest.ecommerce.entity.Product;
+import net.engineeringdigest.ecommerce.repository.ProductRepository;
+import net.engineeringdigest.ecommerce.repository.ReviewRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Testcontainers(disabledWithoutDocker = true)
+class InventoryFlushIdempotencyTest {
+    private static final String FLUSHING_DELTAS_KEY = "inventory:deltas:flushing";
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:6.0");
+
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+    private static LettuceConnectionFactory connectionFactory;
+    private static FailingRedisTemplate redisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryService inventoryService;
+    private ProductService productService;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(mongo.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(client, "inventory-test");
+        connectionFactory = new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new FailingRedisTemplate();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+        client.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Product.class);
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        redisTemplate.failFlushCompletion = false;
+        meterRegistry = new SimpleMeterRegistry();
+        inventoryService = new InventoryService(redisTemplate, mongoTemplate, mock(ProductCache.class),
+            mock(ProductEventPublisher.class), meterRegistry);
+        ReflectionTestUtils.setField(inventoryService, "reservationTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(inventoryService, "lockTtl", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(inventoryService, "sweepBatchSize", 500);
+
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findById(anyString()))
+            .thenAnswer(invocation -> Optional.ofNullable(mongoTemplate.findById(invocation.getArgument(0), Product.class)));
+        productService = new ProductService(productRepository, mock(ReviewRepository.class), mock(ProductCache.class),
+            mock(ProductSearchService.class), mock(ProductEventPublisher.class), mock(InMemoryProductIndex.class),
+            mock(ProductListingCache.class), inventoryService);
+    }
+
+    @Test
+    void retryAfterFailedBatchDeleteDoesNotApplyDeltasTwice() {
+        String productId = insertProduct(10);
+        InventoryReservation reservation = inventoryService.reserve(productId, 3);
+        inventoryService.commit(reservation.getReservationId());
+
+        // Mongo takes the batch but the batch is never removed from Redis
+        redisTemplate.failFlushCompletion = true;
+        inventoryService.flush();
+        assertThat(stockInMongo(productId)).isEqualTo(7);
+        assertThat(redisTemplate.hasKey(FLUSHING_DELTAS_KEY)).isTrue();
+
+        redisTemplate.failFlushCompletion = false;
+        inventoryService.flush();
+
+        assertThat(stockInMongo(productId)).isEqualTo(7);
+        assertThat(redisTemplate.hasKey(FLUSHING_DELTAS_KEY)).isFalse();
+
+        inventoryService.reconcile();
+        assertThat(inventoryService.getAvailable(productId)).isEqualTo(7);
+    }
+
+    @Test
+    void laterBatchesStillApplyAfterARetriedOne() {
+        String productId = insertProduct(10);
+        inventoryService.commit(inventoryService.reserve(productId, 2).getReservationId());
+        redisTemplate.failFlushCompletion = true;
+        inventoryService.flush();
+        redisTemplate.failFlushCompletion = false;
+        inventoryService.flush();
+
+        inventoryService.commit(inventoryService.reserve(productId, 5).getReservationId());
+        inventoryService.flush();
+
+        assertThat(stockInMongo(productId)).isEqualTo(3);
+        assertThat(inventoryService.getAvailable(productId)).isEqualTo(3);
+    }
+
+    @Test
+    void stockUpdatesAndReservationsOnATrackedProductShareOneCounter() {
+        String productId = insertProduct(10);
+        InventoryReservation reservation = inventoryService.reserve(productId, 4);
+
+        // Six are available; a direct write to Mongo would have left all six reservable
+        Product updated = productService.updateStock(productId, 5);
+        assertThat(updated.getStockQuantity()).isEqualTo(5);
+        assertThat(inventoryService.getAvailable(productId)).isEqualTo(1);
+
+        assertThatThrownBy(() -> inventoryService.reserve(productId, 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productService.updateStock(productId, 2)).isInstanceOf(IllegalArgumentException.class);
+
+        inventoryService.commit(reservation.getReservationId());
+        inventoryService.flush();
+        assertThat(stockInMongo(productId)).isEqualTo(1);
+        inventoryService.reconcile();
+        assertThat(inventoryService.getAvailable(productId)).isEqualTo(1);
+    }
+
+    @Test
+    void flushHoldsStockAtZeroAndRecordsTheShortfall() {
+        String productId = insertProduct(5);
+        InventoryReservation reservation = inventoryService.reserve(productId, 3);
+        inventoryService.commit(reservation.getReservationId());
+
+        // A write that went around the engine leaves Mongo with less than the queued delta
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(productId)),
+            new Update().set("stockQuantity", 1), Product.class);
+        inventoryService.flush();
+
+        assertThat(stockInMongo(productId)).isZero();
+        assertThat(meterRegistry.counter("inventory.flush.shortfall").count()).isEqualTo(1);
+    }
+
+    private String insertProduct(int stock) {
+        Product product = Product.builder()
+            .name("Inventory test product")
+            .price(BigDecimal.ONE)
+            .stockQuantity(stock)
+            .active(true)
+            .version(0L)
+            .build();
+        return mongoTemplate.insert(product).getId();
+    }
+
+    private int stockInMongo(String productId) {
+        return mongoTemplate.findById(productId, Product.class).getStockQuantity();
+    }
+
+    // Fails the script that drops a flushed batch, which runs with the batch key first
+    private static final class FailingRedisTemplate extends StringRedisTemplate {
+        private volatile boolean failFlushCompletion;
+
+        @Override
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            if (failFlushCompletion && !keys.isEmpty() && FLUSHING_DELTAS_KEY.equals(keys.get(0))) {
+                throw new RedisSystemException("Injected failure", null);
+            }
+            return super.execute(script, keys, args);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package net.engineeringdigest.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.engineeringdigest.ecommerce.config.RedisValueCodec;
+import net.engineeringdigest.ecommerce.entity.Product;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@Testcontainers(disabledWithoutDocker = true)
+class ProductCacheRedisTest {
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate stringRedisTemplate;
+    private static RedisService redisService;
+
+    // Two caches sharing one Redis stand in for two application nodes
+    private ProductCache nodeA;
+    private ProductCache nodeB;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new RedisValueCodec(objectMapper, "smile", true, 1024));
+        redisTemplate.afterPropertiesSet();
+        redisService = new RedisService(redisTemplate);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory.getConnection().serverCommands().flushAll();
+        nodeA = cache();
+        nodeB = cache();
+    }
+
+    @Test
+    void loadThatOverlapsAnEvictionDoesNotRecacheTheOldValue() {
+        Product before = product("Old name");
+        Product after = product("New name");
+
+        // Node A reads the old product; node B updates it and evicts before A writes back
+        Product loaded = nodeA.get("p1", id -> {
+            nodeB.evict("p1");
+            return before;
+        });
+        assertThat(loaded).isEqualTo(before);
+        assertThat(stringRedisTemplate.hasKey("product:p1")).isFalse();
+
+        assertThat(nodeB.get("p1", id -> after)).isEqualTo(after);
+    }
+
+    @Test
+    void loadsWithoutAnOverlappingEvictionAreShared() {
+        Product product = product("Lamp");
+        nodeA.get("p1", id -> product);
+
+        Product cached = nodeB.get("p1", id -> {
+            throw new AssertionError("Loader should not be called");
+        });
+
+        assertThat(cached).isEqualTo(product);
+    }
+
+    @Test
+    void negativeEntryIsNotCachedAfterAnOverlappingEviction() {
+        Product created = product("Created");
+
+        nodeA.get("p1", id -> {
+            nodeB.evict("p1");
+            return null;
+        });
+
+        assertThat(nodeB.get("p1", id -> created)).isEqualTo(created);
+    }
+
+    private static ProductCache cache() {
+        return new ProductCache(redisService, stringRedisTemplate, new ObjectMapper(),
+            mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(),
+            1 << 20, Duration.ofSeconds(30), Duration.ofHours(1), 0, Duration.ofSeconds(10));
+    }
+
+    private static Product product(String name) {
+        return Product.builder().id("p1").name(name).active(true).build();
+    }
+}
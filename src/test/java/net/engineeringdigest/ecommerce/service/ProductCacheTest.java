@@ -0,0 +1,211 @@
+package net.engineeringdigest.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.engineeringdigest.ecommerce.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCacheTest {
+    private final ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+    private final RedisService redisService = mock(RedisService.class);
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> generations = mock(ValueOperations.class);
+    private ProductCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = cache(0);
+        when(stringRedisTemplate.opsForValue()).thenReturn(generations);
+        when(generations.multiGet(anyList())).thenAnswer(invocation ->
+            Collections.nCopies(invocation.<List<String>>getArgument(0).size(), null));
+        when(redisService.multiGet(anyList())).thenAnswer(invocation ->
+            Collections.nCopies(invocation.<List<String>>getArgument(0).size(), null));
+    }
+
+    @Test
+    void readsProductsStoredWithoutTypeInformation() {
+        Product product = Product.builder()
+            .id("p1")
+            .name("Desk lamp")
+            .price(new BigDecimal("19.99"))
+            .stockQuantity(4)
+            .active(true)
+            .updatedAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+            .build();
+        Object untyped = roundTripWithoutTypes(product);
+        assertThat(untyped).isInstanceOf(Map.class);
+        when(redisService.multiGet(anyList())).thenReturn(Arrays.asList(untyped, null));
+
+        AtomicInteger loads = new AtomicInteger();
+        Product cached = cache.get("p1", id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertThat(loads).hasValue(0);
+        assertThat(cached).isEqualTo(product);
+    }
+
+    @Test
+    void readsUntypedProductsInBatches() {
+        Product product = Product.builder().id("p2").name("Chair").active(true).build();
+        when(redisService.multiGet(anyList())).thenReturn(Arrays.asList(roundTripWithoutTypes(product), null));
+
+        Map<String, Product> cached = cache.getAll(List.of("p2"), ids -> {
+            throw new AssertionError("Loader should not be called for " + ids);
+        });
+
+        assertThat(cached).containsEntry("p2", product);
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        Product product = Product.builder().id("p3").name("Rug").active(true).build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<Product> first = CompletableFuture.supplyAsync(() -> cache.get("p3", id -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return product;
+        }));
+        await(loading);
+        CompletableFuture<Product> second = CompletableFuture.supplyAsync(() -> cache.get("p3", id -> {
+            loads.incrementAndGet();
+            return product;
+        }));
+        // The second caller is parked on the first load until it completes
+        Thread.sleep(100);
+        assertThat(second).isNotDone();
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(product);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(product);
+        assertThat(loads).hasValue(1);
+        verify(redisService, times(1)).multiGet(anyList());
+    }
+
+    @Test
+    void missingProductsAreRememberedUntilEvicted() {
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertThat(cache.get("gone", id -> {
+                loads.incrementAndGet();
+                return null;
+            })).isNull();
+        }
+        assertThat(loads).hasValue(1);
+
+        cache.evict("gone");
+        cache.get("gone", id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void negativeEntriesInRedisSkipTheLoader() {
+        when(redisService.multiGet(anyList())).thenReturn(Arrays.asList(null, Boolean.TRUE));
+
+        Product cached = cache.get("gone", id -> {
+            throw new AssertionError("Loader should not be called");
+        });
+
+        assertThat(cached).isNull();
+    }
+
+    @Test
+    void earlyRefreshReloadsFromTheSourceBeforeExpiry() {
+        // A huge beta makes every read of a live entry fall inside the refresh window
+        cache = cache(1e12);
+        Product original = Product.builder().id("p4").name("Old name").active(true).build();
+        Product refreshed = Product.builder().id("p4").name("New name").active(true).build();
+        cache.get("p4", id -> original);
+
+        Product result = cache.get("p4", id -> refreshed);
+
+        assertThat(result).isEqualTo(refreshed);
+        // The refresh goes straight to the source rather than back to Redis
+        verify(redisService, times(1)).multiGet(anyList());
+    }
+
+    @Test
+    void entriesAreServedLocallyWithoutEarlyRefresh() {
+        Product product = Product.builder().id("p5").name("Vase").active(true).build();
+        cache.get("p5", id -> product);
+
+        Product result = cache.get("p5", id -> {
+            throw new AssertionError("Loader should not be called");
+        });
+
+        assertThat(result).isSameAs(product);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writeBackIsConditionalOnTheGenerationReadBeforeLoading() {
+        when(generations.multiGet(anyList())).thenReturn(Arrays.asList("7"));
+        Product product = Product.builder().id("p6").name("Shelf").active(true).build();
+
+        cache.get("p6", id -> product);
+
+        ArgumentCaptor<List<byte[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(redisService).execute(any(RedisScript.class), eq(List.of("product:p6", "product:generation:p6")), args.capture());
+        assertThat(new String(args.getValue().get(0), StandardCharsets.UTF_8)).isEqualTo("7");
+    }
+
+    private ProductCache cache(double earlyRefreshBeta) {
+        return new ProductCache(redisService, stringRedisTemplate, objectMapper,
+            mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(),
+            1 << 20, Duration.ofSeconds(30), Duration.ofHours(1), earlyRefreshBeta, Duration.ofSeconds(10));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Object roundTripWithoutTypes(Product product) {
+        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+        return serializer.deserialize(serializer.serialize(product));
+    }
+}